@@ -0,0 +1,58 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Summing every balance: AccountStore's long[] against one BankAccount object per account.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class AccountStoreBenchmark {
+
+    @Param({"5000000"})
+    public int accounts;
+
+    AccountStore store;
+    BankAccount[] objects;
+
+    @Setup
+    public void createAccounts() {
+        store = new AccountStore(accounts);
+        objects = new BankAccount[accounts];
+        for (int i = 0; i < accounts; i++) {
+            String email = "user" + i + "@bank.com";
+            store.createCents(email, i);
+            objects[i] = BankAccount.ofCents(email, i);
+        }
+    }
+
+    @Benchmark
+    public long storeTotal() {
+        return store.totalBalanceCents();
+    }
+
+    @Benchmark
+    public long objectTotal() {
+        long total = 0;
+        for (BankAccount account : objects) {
+            total += account.getBalanceCents();
+        }
+        return total;
+    }
+}
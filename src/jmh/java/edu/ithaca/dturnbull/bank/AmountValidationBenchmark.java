@@ -0,0 +1,74 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validating 1M amounts, a random mix of valid and invalid: isAmountValid in a loop against the
+ * branch-free AmountValidator count and bitmap loops, and counting a cents array.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AmountValidationBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    double[] amounts;
+    long[] cents;
+    long[] bitmap;
+
+    @Setup
+    public void createAmounts() {
+        SplittableRandom random = new SplittableRandom(345);
+        amounts = new double[size];
+        cents = new long[size];
+        for (int i = 0; i < size; i++) {
+            amounts[i] = random.nextBoolean() ? random.nextInt(1_000_000) / 100.0 : random.nextInt(1_000_000) / 1000.0 - 100;
+            cents[i] = random.nextLong(-1000, 1_000_000);
+        }
+        bitmap = new long[(size + 63) / 64];
+    }
+
+    @Benchmark
+    public int scalarLoop() {
+        int count = 0;
+        for (double amount : amounts) {
+            if (BankAccount.isAmountValid(amount)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int bulkCount() {
+        return AmountValidator.countValid(amounts);
+    }
+
+    @Benchmark
+    public int bulkBitmap() {
+        return AmountValidator.validate(amounts, bitmap);
+    }
+
+    @Benchmark
+    public int bulkCents() {
+        return AmountValidator.countValidCents(cents);
+    }
+}
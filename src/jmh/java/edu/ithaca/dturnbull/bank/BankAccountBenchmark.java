@@ -0,0 +1,85 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-threaded cost of each BankAccount hot path, once with inputs that pass validation
+ * and once with inputs that are rejected with an IllegalArgumentException.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BankAccountBenchmark {
+
+    @Param({"valid", "invalid"})
+    public String input;
+
+    String email;
+    double amount;
+    BankAccount from;
+    BankAccount to;
+
+    @Setup
+    public void createAccounts() {
+        boolean valid = input.equals("valid");
+        email = valid ? "first.last@mail-archive.com" : "first..last@mail-archive.com";
+        amount = valid ? 0.01 : 10.999;
+        from = new BankAccount("from@bank.com", 100_000_000_000.0);
+        to = new BankAccount("to@bank.com", 0.0);
+    }
+
+    @Benchmark
+    public boolean isEmailValid() {
+        return BankAccount.isEmailValid(email);
+    }
+
+    @Benchmark
+    public boolean isAmountValid() {
+        return BankAccount.isAmountValid(amount);
+    }
+
+    @Benchmark
+    public long withdraw() throws InsufficientFundsException {
+        try {
+            from.withdraw(amount);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        return from.getBalanceCents();
+    }
+
+    @Benchmark
+    public long deposit() {
+        try {
+            to.deposit(amount);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        return to.getBalanceCents();
+    }
+
+    @Benchmark
+    public long transfer() throws InsufficientFundsException {
+        try {
+            from.transfer(to, amount);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        return to.getBalanceCents();
+    }
+}
@@ -0,0 +1,88 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every thread works on the same pair of accounts. BankAccount is guarded by one shared lock,
+ * the way callers have to use it today, and is compared with ConcurrentBankAccount.
+ * "invalid" inputs are rejected for insufficient funds, which is the failure that matters under load;
+ * deposits cannot fail that way and always use a valid amount.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ContendedAccountBenchmark {
+
+    @Param({"valid", "invalid"})
+    public String input;
+
+    double amount;
+    final Object lock = new Object();
+    BankAccount lockedFrom;
+    BankAccount lockedTo;
+    ConcurrentBankAccount concurrentFrom;
+    ConcurrentBankAccount concurrentTo;
+
+    @Setup
+    public void createAccounts() {
+        // invalid withdrawals ask for more than the source account will ever hold
+        amount = input.equals("valid") ? 0.01 : 1_000_000_000_000.0;
+        lockedFrom = new BankAccount("from@bank.com", 100_000_000_000.0);
+        lockedTo = new BankAccount("to@bank.com", 0.0);
+        concurrentFrom = new ConcurrentBankAccount("from@bank.com", 100_000_000_000.0);
+        concurrentTo = new ConcurrentBankAccount("to@bank.com", 0.0);
+    }
+
+    @Benchmark
+    public boolean lockedWithdraw() {
+        synchronized (lock) {
+            return lockedFrom.tryWithdraw(amount);
+        }
+    }
+
+    @Benchmark
+    public boolean concurrentWithdraw() {
+        return concurrentFrom.tryWithdraw(amount);
+    }
+
+    @Benchmark
+    public void lockedDeposit() {
+        synchronized (lock) {
+            lockedTo.deposit(0.01);
+        }
+    }
+
+    @Benchmark
+    public void concurrentDeposit() {
+        concurrentTo.deposit(0.01);
+    }
+
+    @Benchmark
+    public boolean lockedTransfer() {
+        synchronized (lock) {
+            return lockedFrom.tryTransfer(lockedTo, amount);
+        }
+    }
+
+    @Benchmark
+    public boolean concurrentTransfer() {
+        return concurrentFrom.tryTransfer(concurrentTo, amount);
+    }
+}
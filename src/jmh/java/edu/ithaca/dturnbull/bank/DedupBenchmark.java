@@ -0,0 +1,67 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of guarding deposits with OperationDedupCache: a plain deposit, a deposit under a new
+ * operation id, which runs and is remembered, and a retry of a remembered id, which is a lookup only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DedupBenchmark {
+
+    static final int REMEMBERED = 1 << 16;
+
+    final AtomicLong nextId = new AtomicLong(REMEMBERED);
+    OperationDedupCache cache;
+    OperationDedupCache freshCache;
+    ConcurrentBankAccount account;
+
+    @Setup
+    public void fillCache() {
+        cache = new OperationDedupCache(1 << 20, 3_600_000);
+        // new ids expire quickly so a long run never fills the cache and gets refused
+        freshCache = new OperationDedupCache(1 << 20, 1);
+        account = new ConcurrentBankAccount("a@b.com", 0.0);
+        for (long id = 0; id < REMEMBERED; id++) {
+            cache.deposit(id, account, 0.01);
+        }
+    }
+
+    @Benchmark
+    public long plain() {
+        account.deposit(0.01);
+        return account.getBalanceCents();
+    }
+
+    @Benchmark
+    public long newId() {
+        freshCache.deposit(nextId.getAndIncrement(), account, 0.01);
+        return account.getBalanceCents();
+    }
+
+    @Benchmark
+    public long retry() {
+        cache.deposit(ThreadLocalRandom.current().nextLong(REMEMBERED), account, 0.01);
+        return account.getBalanceCents();
+    }
+}
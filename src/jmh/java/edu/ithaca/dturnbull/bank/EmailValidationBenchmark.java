@@ -0,0 +1,50 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validating a small working set of emails over and over: the scanner directly against
+ * an EmailValidationCache sized to hold the whole set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EmailValidationBenchmark {
+
+    String[] emails;
+    EmailValidationCache cache;
+    int next;
+
+    @Setup
+    public void createEmails() {
+        emails = new String[64];
+        for (int i = 0; i < emails.length; i++) {
+            emails[i] = "first.last-" + i + "@accounts.example-bank.com";
+        }
+        cache = new EmailValidationCache(1024, EvictionPolicy.Lru::new);
+    }
+
+    @Benchmark
+    public boolean direct() {
+        return BankAccount.isEmailValid(emails[next++ & 63]);
+    }
+
+    @Benchmark
+    public boolean cached() {
+        return cache.isValid(emails[next++ & 63]);
+    }
+}
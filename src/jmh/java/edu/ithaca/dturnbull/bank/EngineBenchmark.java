@@ -0,0 +1,69 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Four threads depositing into and transferring out of one hot account: through the single-writer
+ * AccountEngine (waiting for each future) against a BankAccount guarded by a shared lock.
+ * Sample time mode reports throughput alongside the p99 latency of each call.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class EngineBenchmark {
+
+    AccountEngine engine;
+    BankAccount engineHot;
+    BankAccount engineOther;
+
+    final Object lock = new Object();
+    BankAccount lockedHot;
+    BankAccount lockedOther;
+
+    @Setup
+    public void start() {
+        engine = new AccountEngine(1024);
+        engineHot = new BankAccount("hot@bank.com", 0.0);
+        engineOther = new BankAccount("other@bank.com", 0.0);
+        lockedHot = new BankAccount("hot@bank.com", 0.0);
+        lockedOther = new BankAccount("other@bank.com", 0.0);
+    }
+
+    @TearDown
+    public void stop() throws InterruptedException {
+        engine.close();
+    }
+
+    @Benchmark
+    public void engineDepositAndTransfer() {
+        engine.deposit(engineHot, 0.01);
+        engine.transfer(engineHot, engineOther, 0.01).join();
+    }
+
+    @Benchmark
+    public void lockedDepositAndTransfer() throws InsufficientFundsException {
+        synchronized (lock) {
+            lockedHot.deposit(0.01);
+        }
+        synchronized (lock) {
+            lockedHot.transfer(lockedOther, 0.01);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of rejecting a withdrawal or transfer for insufficient funds: the throwing methods,
+ * which fill in a stack trace every time, against the try methods, which return false.
+ * Run with -prof gc to see the allocation per rejection.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FailureSignallingBenchmark {
+
+    BankAccount empty;
+    BankAccount other;
+
+    @Setup
+    public void createAccounts() {
+        empty = new BankAccount("empty@bank.com", 0.0);
+        other = new BankAccount("other@bank.com", 0.0);
+    }
+
+    @Benchmark
+    public boolean withdrawThrowing() {
+        try {
+            empty.withdraw(10.0);
+            return true;
+        } catch (InsufficientFundsException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean withdrawTry() {
+        return empty.tryWithdraw(10.0);
+    }
+
+    @Benchmark
+    public boolean transferThrowing() {
+        try {
+            empty.transfer(other, 10.0);
+            return true;
+        } catch (InsufficientFundsException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean transferTry() {
+        return empty.tryTransfer(other, 10.0);
+    }
+}
@@ -0,0 +1,83 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Importing a CSV of 10M accounts, 1% of them invalid: AccountImporter on 1 and 4 threads
+ * against reading lines, splitting them and calling create, catching each rejection.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ImportBenchmark {
+
+    @Param({"10000000"})
+    public int rows;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    Path file;
+
+    @Setup
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("accounts", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write("email,startingBalance\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(i % 100 == 0 ? "user" + i + "@bank,12.50\n" : "user" + i + "@bank.com," + (i % 10_000) + ".25\n");
+            }
+        }
+    }
+
+    @TearDown
+    public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public AccountStore importer() throws IOException {
+        AccountStore store = new AccountStore(rows);
+        new AccountImporter(parallelism, AccountImporter.DEFAULT_CHUNK_SIZE, 1000).importCsv(file, store, true);
+        return store;
+    }
+
+    @Benchmark
+    public AccountStore linesAndCreate() throws IOException {
+        AccountStore store = new AccountStore(rows);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            reader.readLine();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] fields = line.split(",");
+                try {
+                    store.create(fields[0].trim(), Double.parseDouble(fields[1].trim()));
+                } catch (IllegalArgumentException e) {
+                    // rejected row
+                }
+            }
+        }
+        return store;
+    }
+}
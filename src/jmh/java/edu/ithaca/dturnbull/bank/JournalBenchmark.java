@@ -0,0 +1,65 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AccountStore deposits and transfers with no journal against a memory-mapped journal,
+ * for several group commit sizes (-1 means no journal, 0 leaves syncing to the operating system).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JournalBenchmark {
+
+    @Param({"-1", "0", "10000"})
+    public int syncEvery;
+
+    Path file;
+    TransactionJournal journal;
+    AccountStore store;
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        if (syncEvery >= 0) {
+            file = Files.createTempFile("journal", ".bin");
+            journal = new TransactionJournal(file, syncEvery);
+        }
+        store = new AccountStore(2, journal);
+        store.createCents("a@b.com", 0);
+        store.createCents("c@d.com", 0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            Files.delete(file);
+        }
+    }
+
+    @Benchmark
+    public void depositAndTransfer() throws InsufficientFundsException {
+        store.depositCents(0, 1);
+        store.transferCents(0, 1, 1);
+    }
+}
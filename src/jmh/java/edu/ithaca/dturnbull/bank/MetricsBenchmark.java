@@ -0,0 +1,54 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Overhead of AccountMetrics: a deposit and withdrawal made directly against the same pair
+ * made through the instrumented wrappers, timing every operation or a sample of them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    @Param({"1", "16"})
+    int sampleEvery;
+
+    AccountMetrics metrics;
+    ConcurrentBankAccount account;
+
+    @Setup
+    public void createAccount() {
+        metrics = new AccountMetrics(sampleEvery);
+        account = new ConcurrentBankAccount("a@b.com", 100.0);
+    }
+
+    @Benchmark
+    public long plain() throws InsufficientFundsException {
+        account.deposit(1.0);
+        account.withdraw(1.0);
+        return account.getBalanceCents();
+    }
+
+    @Benchmark
+    public long instrumented() throws InsufficientFundsException {
+        metrics.deposit(account, 1.0);
+        metrics.withdraw(account, 1.0);
+        return account.getBalanceCents();
+    }
+}
@@ -0,0 +1,83 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Startup time after a crash with 10M accounts: loading a snapshot and replaying a journal tail
+ * of 2M transfers on 1 and 4 threads, against replaying the whole journal from the start.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class RecoveryBenchmark {
+
+    @Param({"10000000"})
+    public int accounts;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    Path dir;
+    Path snapshot;
+    TransactionJournal journal;
+
+    @Setup
+    public void writeSnapshotAndJournal() throws IOException, InsufficientFundsException {
+        dir = Files.createTempDirectory("recovery");
+        snapshot = dir.resolve("accounts.snap");
+        journal = new TransactionJournal(dir.resolve("journal.bin"), 0);
+
+        AccountStore store = new AccountStore(accounts, journal);
+        for (int i = 0; i < accounts; i++) {
+            store.createCents("user" + i + "@bank.com", 10_000);
+        }
+        AccountSnapshot.write(store, journal, snapshot);
+
+        SplittableRandom random = new SplittableRandom(345);
+        for (int i = 0; i < 2_000_000; i++) {
+            store.transferCents(random.nextInt(accounts), random.nextInt(accounts), 1);
+        }
+        journal.sync();
+    }
+
+    @TearDown
+    public void deleteFiles() throws IOException {
+        journal.close();
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public AccountStore snapshotAndTail() throws IOException {
+        return AccountSnapshot.recover(snapshot, journal, parallelism);
+    }
+
+    @Benchmark
+    public AccountStore wholeJournal() throws IOException {
+        return AccountSnapshot.recover(dir.resolve("missing.snap"), journal, parallelism);
+    }
+}
@@ -0,0 +1,77 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of an in-process cluster as shards are added: batches of deposits and transfers
+ * spread over 10k accounts, most transfers crossing shards. Scaling needs at least as many
+ * cores as shards.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int BATCH = 10_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    ShardedAccounts cluster;
+    String[] emails;
+    CompletableFuture<?>[] pending = new CompletableFuture<?>[BATCH];
+    int next;
+
+    @Setup
+    public void openAccounts() throws Exception {
+        cluster = new ShardedAccounts(new InProcessShardTransport(shards));
+        emails = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            emails[i] = "user" + i + "@bank.com";
+            cluster.open(emails[i], 1000.0).get();
+        }
+    }
+
+    @TearDown
+    public void stop() throws InterruptedException {
+        cluster.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void deposits() {
+        for (int i = 0; i < BATCH; i++) {
+            pending[i] = cluster.deposit(emails[next++ % ACCOUNTS], 0.01);
+        }
+        CompletableFuture.allOf(pending).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void transfers() {
+        for (int i = 0; i < BATCH; i++) {
+            int from = next++ % ACCOUNTS;
+            pending[i] = cluster.transfer(emails[from], emails[(from * 7 + 1) % ACCOUNTS], 0.01);
+        }
+        CompletableFuture.allOf(pending).handle((ignored, e) -> null).join();
+    }
+}
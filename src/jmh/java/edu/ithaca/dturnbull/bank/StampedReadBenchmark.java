@@ -0,0 +1,114 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read-mostly traffic on one shared account: 50 balance reads for every deposit, as seen in
+ * production. StampedBankAccount reads optimistically; it is compared with ConcurrentBankAccount,
+ * a BankAccount guarded by one monitor and a BankAccount guarded by a ReentrantReadWriteLock.
+ * Scaling with threads is measured with e.g. -t 1 ... -t 64 on the command line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StampedReadBenchmark {
+
+    static final int READS_PER_WRITE = 50;
+
+    final Object monitor = new Object();
+    final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    BankAccount synchronizedAccount;
+    BankAccount readWriteAccount;
+    ConcurrentBankAccount concurrentAccount;
+    StampedBankAccount stampedAccount;
+
+    @State(Scope.Thread)
+    public static class Mix {
+        int op;
+
+        boolean write() {
+            if (++op > READS_PER_WRITE) {
+                op = 0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @Setup
+    public void createAccounts() {
+        synchronizedAccount = new BankAccount("a@b.com", 100.0);
+        readWriteAccount = new BankAccount("a@b.com", 100.0);
+        concurrentAccount = new ConcurrentBankAccount("a@b.com", 100.0);
+        stampedAccount = new StampedBankAccount("a@b.com", 100.0);
+    }
+
+    @Benchmark
+    public long synchronizedAccount(Mix mix) {
+        synchronized (monitor) {
+            if (mix.write()) {
+                synchronizedAccount.depositCents(1);
+            }
+            return synchronizedAccount.getBalanceCents();
+        }
+    }
+
+    @Benchmark
+    public long readWriteLocked(Mix mix) {
+        if (mix.write()) {
+            readWriteLock.writeLock().lock();
+            try {
+                readWriteAccount.depositCents(1);
+            } finally {
+                readWriteLock.writeLock().unlock();
+            }
+        }
+        readWriteLock.readLock().lock();
+        try {
+            return readWriteAccount.getBalanceCents();
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    @Benchmark
+    public long concurrent(Mix mix) {
+        if (mix.write()) {
+            concurrentAccount.depositCents(1);
+        }
+        return concurrentAccount.getBalanceCents();
+    }
+
+    @Benchmark
+    public long stamped(Mix mix) {
+        if (mix.write()) {
+            stampedAccount.depositCents(1);
+        }
+        return stampedAccount.getBalanceCents();
+    }
+
+    @Benchmark
+    public long stampedTotals(Mix mix) {
+        if (mix.write()) {
+            stampedAccount.depositCents(1);
+        }
+        return stampedAccount.getTotals().getDepositedCents();
+    }
+}
@@ -0,0 +1,64 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Throughput of ConcurrentBankAccount transfers as the thread count grows (run with -t 1, 2, 4, ...).
+ * "disjoint" gives every thread its own pair of accounts, "overlapping" makes every thread
+ * move money back and forth between the same two accounts, half of them in the opposite direction.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+    @Param({"disjoint", "overlapping"})
+    public String pairs;
+
+    ConcurrentBankAccount[] accounts;
+
+    @Setup
+    public void createAccounts(BenchmarkParams params) {
+        accounts = new ConcurrentBankAccount[2 * params.getThreads()];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new ConcurrentBankAccount("user" + i + "@bank.com", 1_000_000.0);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Pair {
+        ConcurrentBankAccount from;
+        ConcurrentBankAccount to;
+
+        @Setup
+        public void pick(TransferBenchmark benchmark, ThreadParams thread) {
+            int first = benchmark.pairs.equals("disjoint") ? 2 * thread.getThreadIndex() : 0;
+            boolean reversed = thread.getThreadIndex() % 2 == 1;
+            from = benchmark.accounts[reversed ? first + 1 : first];
+            to = benchmark.accounts[reversed ? first : first + 1];
+        }
+    }
+
+    @Benchmark
+    public void transferThereAndBack(Pair pair) throws InsufficientFundsException {
+        pair.from.transferCents(pair.to, 1);
+        pair.to.transferCents(pair.from, 1);
+    }
+}
@@ -0,0 +1,197 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies deposits, withdrawals and transfers to BankAccounts on one writer thread.
+ *
+ * Client threads publish commands into a preallocated ring buffer and get a future back;
+ * the writer applies them in sequence order with the normal BankAccount rules, so balances
+ * need no locks and every account sees its operations in one global order. Futures fail with
+ * the exception the BankAccount method threw. Accounts given to an engine must only be changed
+ * through it, and callbacks on the futures should be async since they otherwise run on the writer.
+ */
+public final class AccountEngine implements AutoCloseable {
+
+    private static final byte DEPOSIT = 1;
+    private static final byte WITHDRAW = 2;
+    private static final byte TRANSFER = 3;
+
+    private static final long CLOSED = Long.MIN_VALUE;
+    private static final int SPINS_BEFORE_PARK = 200;
+
+    private static final class Slot {
+        volatile long published = -1;
+        byte type;
+        BankAccount account;
+        BankAccount toAccount;
+        double amount;
+        CompletableFuture<Void> future;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean writerParked;
+
+    /**
+     * Starts an engine and its writer thread
+     *
+     * @param capacity how many commands can wait in the ring buffer, rounded up to a power of two
+     */
+    public AccountEngine(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30.");
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        mask = size - 1;
+        writer = new Thread(this::run, "account-engine-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a deposit, see {@link BankAccount#deposit(double)}
+     *
+     * @return a future completed once the deposit has been applied
+     */
+    public CompletableFuture<Void> deposit(BankAccount account, double amount) {
+        return publish(DEPOSIT, account, null, amount);
+    }
+
+    /**
+     * Queues a withdrawal, see {@link BankAccount#withdraw(double)}
+     *
+     * @return a future completed once the withdrawal has been applied, or failed with InsufficientFundsException
+     */
+    public CompletableFuture<Void> withdraw(BankAccount account, double amount) {
+        return publish(WITHDRAW, account, null, amount);
+    }
+
+    /**
+     * Queues a transfer, see {@link BankAccount#transfer(BankAccount, double)}
+     *
+     * @return a future completed once the transfer has been applied, or failed with InsufficientFundsException
+     */
+    public CompletableFuture<Void> transfer(BankAccount fromAccount, BankAccount toAccount, double amount) {
+        return publish(TRANSFER, fromAccount, toAccount, amount);
+    }
+
+    /**
+     * Stops taking commands, waits for the writer to apply every command already queued, and stops it.
+     * If interrupted while waiting, returns early with the interrupt flag set; the writer still finishes.
+     */
+    @Override
+    public void close() {
+        long current;
+        do {
+            current = claimed.get();
+        } while ((current & CLOSED) == 0 && !claimed.compareAndSet(current, current | CLOSED));
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Void> publish(byte type, BankAccount account, BankAccount toAccount, double amount) {
+        if (account == null) {
+            throw new IllegalArgumentException("account cannot be null.");
+        }
+
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if ((sequence & CLOSED) != 0) {
+                throw new IllegalStateException("Engine is closed.");
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        // Wait for the writer to free the slot this sequence wraps onto
+        for (int spins = 0; sequence - slots.length >= consumed.get(); spins++) {
+            if (spins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(1_000);
+            }
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Slot slot = slots[(int) sequence & mask];
+        slot.type = type;
+        slot.account = account;
+        slot.toAccount = toAccount;
+        slot.amount = amount;
+        slot.future = future;
+        slot.published = sequence;
+
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+        return future;
+    }
+
+    private void run() {
+        long next = 0;
+        int idle = 0;
+        while (true) {
+            Slot slot = slots[(int) next & mask];
+            if (slot.published == next) {
+                // Apply everything published so far, then free the whole batch at once
+                do {
+                    apply(slot);
+                    next++;
+                    slot = slots[(int) next & mask];
+                } while (slot.published == next);
+                consumed.lazySet(next);
+                idle = 0;
+                continue;
+            }
+
+            long claimedNow = claimed.get();
+            if ((claimedNow & CLOSED) != 0 && next == (claimedNow & ~CLOSED)) {
+                return;
+            }
+
+            if (idle++ < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                writerParked = true;
+                if (slot.published != next) {
+                    LockSupport.park(this);
+                }
+                writerParked = false;
+            }
+        }
+    }
+
+    private static void apply(Slot slot) {
+        CompletableFuture<Void> future = slot.future;
+        try {
+            switch (slot.type) {
+                case DEPOSIT -> slot.account.deposit(slot.amount);
+                case WITHDRAW -> slot.account.withdraw(slot.amount);
+                default -> slot.account.transfer(slot.toAccount, slot.amount);
+            }
+            future.complete(null);
+        } catch (InsufficientFundsException | RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            slot.account = null;
+            slot.toAccount = null;
+            slot.future = null;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams accounts from a CSV file of "email,startingBalance" rows into an AccountStore.
+ *
+ * The file is read through a FileChannel in fixed-size chunks cut at line ends. Chunks are parsed
+ * and validated in parallel, straight from the bytes: amounts go to cents without a String or a
+ * double, and emails are checked in place. Valid rows are then added to the store in file order.
+ * Invalid rows do not throw; they are counted, and the first few are kept in the ImportReport.
+ * At most two chunks per thread are in memory at once, and chunk buffers are reused, so memory
+ * stays constant however long the file is.
+ *
+ * Fields are trimmed of spaces and quotes are not supported. Amounts follow the starting balance
+ * rules of BankAccount: 0, or positive with no more than 2 decimals (extra zero decimals are fine).
+ */
+public class AccountImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    static final byte WRONG_COLUMN_COUNT = 1;
+    static final byte INVALID_EMAIL = 2;
+    static final byte INVALID_AMOUNT = 3;
+    static final byte ROW_TOO_LONG = 4;
+
+    private static final long MAX_WHOLE_UNITS = (Long.MAX_VALUE - 99) / 100;
+
+    private final int parallelism;
+    private final int chunkSize;
+    private final int maxReportedRejections;
+
+    /**
+     * @param parallelism how many threads parse chunks
+     * @param chunkSize how many bytes are read at a time, rows longer than this are rejected
+     * @param maxReportedRejections how many rejected rows the report lists, all of them are counted
+     * @throws IllegalArgumentException if parallelism or chunkSize is less than 1, or maxReportedRejections is negative
+     */
+    public AccountImporter(int parallelism, int chunkSize, int maxReportedRejections) {
+        if (parallelism < 1 || chunkSize < 1 || maxReportedRejections < 0) {
+            throw new IllegalArgumentException("parallelism and chunkSize must be at least 1, maxReportedRejections at least 0.");
+        }
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.maxReportedRejections = maxReportedRejections;
+    }
+
+    /**
+     * Uses every core, 1 MB chunks, and reports up to 1000 rejected rows
+     */
+    public AccountImporter() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE, 1000);
+    }
+
+    /**
+     * Adds an account to store for every valid row of file
+     *
+     * @param file the CSV file to read
+     * @param store where the accounts are added, ids follow the order of the rows
+     * @param skipHeader whether the first line is a header and not an account
+     * @return how many rows were imported and which were rejected
+     * @throws IOException if the file cannot be read
+     */
+    public ImportReport importCsv(Path file, AccountStore store, boolean skipHeader) throws IOException {
+        ImportReport report = new ImportReport(maxReportedRejections);
+        int maxInFlight = 2 * parallelism;
+        ArrayDeque<Chunk> free = new ArrayDeque<>();
+        for (int i = 0; i < maxInFlight; i++) {
+            free.add(new Chunk(chunkSize));
+        }
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Chunk previous = null;
+            int carry = 0;
+            boolean skipping = false;
+            boolean first = true;
+            boolean eof = false;
+            while (!eof) {
+                if (free.isEmpty()) {
+                    // Never the chunk just submitted, whose tail is still to be carried, since maxInFlight >= 2
+                    Chunk done = inFlight.poll().get();
+                    apply(done, store, report);
+                    free.add(done);
+                }
+                Chunk chunk = free.poll();
+
+                int filled = carry;
+                if (carry > 0) {
+                    System.arraycopy(previous.buffer, previous.length, chunk.buffer, 0, carry);
+                }
+                ByteBuffer target = chunk.view.limit(chunkSize).position(filled);
+                while (target.hasRemaining()) {
+                    if (channel.read(target) < 0) {
+                        eof = true;
+                        break;
+                    }
+                }
+                filled = target.position();
+
+                if (skipping) {
+                    // Drop the rest of a row that was too long
+                    int newline = indexOf(chunk.buffer, (byte) '\n', 0, filled);
+                    if (newline >= 0) {
+                        skipping = false;
+                        filled -= newline + 1;
+                        System.arraycopy(chunk.buffer, newline + 1, chunk.buffer, 0, filled);
+                    } else {
+                        filled = 0;
+                    }
+                }
+
+                int end = eof ? filled : lastIndexOf(chunk.buffer, (byte) '\n', filled) + 1;
+                chunk.oversized = end == 0 && filled == chunkSize;
+                if (chunk.oversized) {
+                    skipping = true;
+                    carry = 0;
+                } else {
+                    carry = filled - end;
+                }
+                chunk.length = chunk.oversized ? 0 : end;
+                chunk.skipFirstLine = skipHeader && first;
+                first = false;
+                previous = chunk;
+
+                if (chunk.length == 0 && !chunk.oversized) {
+                    free.add(chunk);
+                } else {
+                    inFlight.add(pool.submit(() -> {
+                        chunk.parse();
+                        return chunk;
+                    }));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                apply(inFlight.poll().get(), store, report);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing " + file, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not import " + file, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return report;
+    }
+
+    private static void apply(Chunk chunk, AccountStore store, ImportReport report) {
+        for (int i = 0; i < chunk.rows; i++) {
+            store.appendAscii(chunk.buffer, chunk.emailFrom[i], chunk.emailTo[i], chunk.cents[i]);
+        }
+        report.imported += chunk.rows;
+        for (int i = 0; i < chunk.rejections; i++) {
+            report.reject(report.lines + chunk.rejectedLine[i] + 1, chunk.rejectedReason[i]);
+        }
+        report.lines += chunk.lines;
+    }
+
+    /**
+     * Parses a plain decimal amount of money into cents
+     *
+     * @return the amount in cents, or -1 if it is not a valid starting balance
+     */
+    static long parseCents(byte[] bytes, int from, int to) {
+        long whole = 0;
+        int i = from;
+        for (; i < to && isDigit(bytes[i]); i++) {
+            whole = whole * 10 + (bytes[i] - '0');
+            if (whole > MAX_WHOLE_UNITS) {
+                return -1;
+            }
+        }
+        int wholeDigits = i - from;
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < to && bytes[i] == '.') {
+            for (i++; i < to && isDigit(bytes[i]); i++, fractionDigits++) {
+                if (fractionDigits < 2) {
+                    fraction = fraction * 10 + (bytes[i] - '0');
+                } else if (bytes[i] != '0') {
+                    return -1; // more than 2 decimals
+                }
+            }
+        }
+
+        if (i != to || wholeDigits + fractionDigits == 0) {
+            return -1;
+        }
+        long cents = whole * 100 + (fractionDigits == 1 ? fraction * 10 : fraction);
+        return cents > BankAccount.MAX_BALANCE_CENTS ? -1 : cents;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte b, int to) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A buffer of whole lines and what parsing them found. Reused once applied.
+     */
+    private static final class Chunk {
+        final byte[] buffer;
+        final ByteBuffer view;
+        final AsciiSlice email;
+        int length;
+        boolean skipFirstLine;
+        boolean oversized;
+
+        int lines;
+        int rows;
+        int[] emailFrom = new int[64];
+        int[] emailTo = new int[64];
+        long[] cents = new long[64];
+        int rejections;
+        int[] rejectedLine = new int[16];
+        byte[] rejectedReason = new byte[16];
+
+        Chunk(int size) {
+            buffer = new byte[size];
+            view = ByteBuffer.wrap(buffer);
+            email = new AsciiSlice(buffer);
+        }
+
+        void parse() {
+            lines = 0;
+            rows = 0;
+            rejections = 0;
+            if (oversized) {
+                lines = 1;
+                reject(0, ROW_TOO_LONG);
+                return;
+            }
+
+            int pos = 0;
+            while (pos < length) {
+                int newline = indexOf(buffer, (byte) '\n', pos, length);
+                int end = newline < 0 ? length : newline;
+                int lineEnd = end > pos && buffer[end - 1] == '\r' ? end - 1 : end;
+                if (!(skipFirstLine && lines == 0)) {
+                    parseRow(pos, lineEnd);
+                }
+                lines++;
+                pos = end + 1;
+            }
+        }
+
+        private void parseRow(int from, int to) {
+            from = skipSpaces(from, to);
+            to = trimSpaces(from, to);
+            if (from == to) {
+                return; // blank lines are ignored
+            }
+
+            int comma = indexOf(buffer, (byte) ',', from, to);
+            if (comma < 0 || indexOf(buffer, (byte) ',', comma + 1, to) >= 0) {
+                reject(lines, WRONG_COLUMN_COUNT);
+                return;
+            }
+
+            int emailTo = trimSpaces(from, comma);
+            if (!EmailValidator.isValid(email.of(from, emailTo))) {
+                reject(lines, INVALID_EMAIL);
+                return;
+            }
+            int amountFrom = skipSpaces(comma + 1, to);
+            long amount = parseCents(buffer, amountFrom, to);
+            if (amount < 0) {
+                reject(lines, INVALID_AMOUNT);
+                return;
+            }
+
+            if (rows == cents.length) {
+                emailFrom = Arrays.copyOf(emailFrom, rows * 2);
+                this.emailTo = Arrays.copyOf(this.emailTo, rows * 2);
+                cents = Arrays.copyOf(cents, rows * 2);
+            }
+            emailFrom[rows] = from;
+            this.emailTo[rows] = emailTo;
+            cents[rows] = amount;
+            rows++;
+        }
+
+        private void reject(int line, byte reason) {
+            if (rejections == rejectedLine.length) {
+                rejectedLine = Arrays.copyOf(rejectedLine, rejections * 2);
+                rejectedReason = Arrays.copyOf(rejectedReason, rejections * 2);
+            }
+            rejectedLine[rejections] = line;
+            rejectedReason[rejections] = reason;
+            rejections++;
+        }
+
+        private int skipSpaces(int from, int to) {
+            while (from < to && buffer[from] == ' ') {
+                from++;
+            }
+            return from;
+        }
+
+        private int trimSpaces(int from, int to) {
+            while (to > from && buffer[to - 1] == ' ') {
+                to--;
+            }
+            return to;
+        }
+    }
+
+    /**
+     * Reusable CharSequence view of ASCII bytes, so emails can be validated without a String
+     */
+    private static final class AsciiSlice implements CharSequence {
+        private final byte[] bytes;
+        private int from;
+        private int to;
+
+        AsciiSlice(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        AsciiSlice of(int from, int to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return to - from;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[from + index] & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, from + start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+
+    /**
+     * What an import did: how many rows became accounts and which were rejected
+     */
+    public static final class ImportReport {
+
+        private final int maxReported;
+        private final List<Rejection> rejections = new ArrayList<>();
+        private long imported;
+        private long rejected;
+        private long lines;
+
+        ImportReport(int maxReported) {
+            this.maxReported = maxReported;
+        }
+
+        private void reject(long line, byte reason) {
+            rejected++;
+            if (rejections.size() < maxReported) {
+                rejections.add(new Rejection(line, reason));
+            }
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        /**
+         * @return how many rows were rejected, including ones not listed in getRejections
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return the first rejected rows, in file order
+         */
+        public List<Rejection> getRejections() {
+            return Collections.unmodifiableList(rejections);
+        }
+    }
+
+    /**
+     * One rejected row
+     */
+    public static final class Rejection {
+
+        private final long line;
+        private final byte reason;
+
+        Rejection(long line, byte reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+
+        /**
+         * @return the line number of the row, starting at 1
+         */
+        public long getLine() {
+            return line;
+        }
+
+        public String getReason() {
+            return switch (reason) {
+                case WRONG_COLUMN_COUNT -> "Row must have an email and a starting balance.";
+                case INVALID_EMAIL -> "Email address is invalid.";
+                case INVALID_AMOUNT -> "Starting balance is invalid.";
+                default -> "Row is longer than the chunk size.";
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + getReason();
+        }
+    }
+}
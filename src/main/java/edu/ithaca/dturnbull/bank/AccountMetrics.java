@@ -0,0 +1,213 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional instrumentation for account operations.
+ *
+ * Calls made through an AccountMetrics are timed and counted per operation, along with how often
+ * they threw InsufficientFundsException or IllegalArgumentException. Counters are LongAdders and
+ * latencies go into a {@link LatencyHistogram}, so recording allocates nothing and threads do not
+ * contend on one counter. Code that does not go through it pays nothing.
+ *
+ * Reading the clock is most of the cost where System.nanoTime() is slow, so latencies can be
+ * sampled: counts stay exact while only about one in sampleEvery operations is timed.
+ */
+public class AccountMetrics {
+
+    public enum Operation { OPEN, DEPOSIT, WITHDRAW, TRANSFER }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final LongAdder[] counts = new LongAdder[OPERATIONS.length];
+    private final LongAdder[] insufficientFunds = new LongAdder[OPERATIONS.length];
+    private final LongAdder[] illegalArguments = new LongAdder[OPERATIONS.length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final int sampleMask;
+
+    /**
+     * Times every operation
+     */
+    public AccountMetrics() {
+        this(1);
+    }
+
+    /**
+     * @param sampleEvery time about one in this many operations, must be a power of two
+     */
+    public AccountMetrics(int sampleEvery) {
+        if (sampleEvery < 1 || Integer.bitCount(sampleEvery) != 1) {
+            throw new IllegalArgumentException("sampleEvery must be a power of two.");
+        }
+        sampleMask = sampleEvery - 1;
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            counts[i] = new LongAdder();
+            insufficientFunds[i] = new LongAdder();
+            illegalArguments[i] = new LongAdder();
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Creates an account, see {@link ConcurrentBankAccount#ConcurrentBankAccount(String, double)}
+     */
+    public ConcurrentBankAccount open(String email, double startingBalance) {
+        long start = startTimer();
+        try {
+            ConcurrentBankAccount account = new ConcurrentBankAccount(email, startingBalance);
+            record(Operation.OPEN, start, null);
+            return account;
+        } catch (RuntimeException e) {
+            record(Operation.OPEN, start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Deposits into account, see {@link ConcurrentBankAccount#deposit(double)}
+     */
+    public void deposit(ConcurrentBankAccount account, double amount) {
+        long start = startTimer();
+        try {
+            account.deposit(amount);
+            record(Operation.DEPOSIT, start, null);
+        } catch (RuntimeException e) {
+            record(Operation.DEPOSIT, start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Withdraws from account, see {@link ConcurrentBankAccount#withdraw(double)}
+     */
+    public void withdraw(ConcurrentBankAccount account, double amount) throws InsufficientFundsException {
+        long start = startTimer();
+        try {
+            account.withdraw(amount);
+            record(Operation.WITHDRAW, start, null);
+        } catch (InsufficientFundsException | RuntimeException e) {
+            record(Operation.WITHDRAW, start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Transfers between accounts, see {@link ConcurrentBankAccount#transfer(ConcurrentBankAccount, double)}
+     */
+    public void transfer(ConcurrentBankAccount fromAccount, ConcurrentBankAccount toAccount, double amount) throws InsufficientFundsException {
+        long start = startTimer();
+        try {
+            fromAccount.transfer(toAccount, amount);
+            record(Operation.TRANSFER, start, null);
+        } catch (InsufficientFundsException | RuntimeException e) {
+            record(Operation.TRANSFER, start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts timing an operation, for accounts the wrappers above do not cover
+     *
+     * @return the value to pass to {@link #record(Operation, long, Throwable)} once it is done
+     */
+    public long startTimer() {
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return NOT_TIMED;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records one operation
+     *
+     * @param operation the operation that ran
+     * @param start what {@link #startTimer()} returned when it started
+     * @param failure what it threw, or null if it succeeded
+     */
+    public void record(Operation operation, long start, Throwable failure) {
+        int i = operation.ordinal();
+        if (start != NOT_TIMED) {
+            latencies[i].record(System.nanoTime() - start);
+        }
+        counts[i].increment();
+        if (failure instanceof InsufficientFundsException) {
+            insufficientFunds[i].increment();
+        } else if (failure instanceof IllegalArgumentException) {
+            illegalArguments[i].increment();
+        }
+    }
+
+    /**
+     * @return everything recorded so far
+     */
+    public Map<Operation, Stats> snapshot() {
+        return collect(false);
+    }
+
+    /**
+     * Takes a snapshot and starts counting again from zero. Operations recorded while this runs
+     * land either in the returned snapshot or in the next one, never in both.
+     *
+     * @return everything recorded since the last reset
+     */
+    public Map<Operation, Stats> snapshotAndReset() {
+        return collect(true);
+    }
+
+    private Map<Operation, Stats> collect(boolean reset) {
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : OPERATIONS) {
+            int i = operation.ordinal();
+            stats.put(operation, new Stats(
+                    reset ? counts[i].sumThenReset() : counts[i].sum(),
+                    reset ? insufficientFunds[i].sumThenReset() : insufficientFunds[i].sum(),
+                    reset ? illegalArguments[i].sumThenReset() : illegalArguments[i].sum(),
+                    latencies[i].snapshot(reset)));
+        }
+        return stats;
+    }
+
+    /**
+     * Numbers for one operation at the time of a snapshot
+     */
+    public static final class Stats {
+
+        private final long count;
+        private final long insufficientFunds;
+        private final long illegalArguments;
+        private final LatencyHistogram.Snapshot latency;
+
+        Stats(long count, long insufficientFunds, long illegalArguments, LatencyHistogram.Snapshot latency) {
+            this.count = count;
+            this.insufficientFunds = insufficientFunds;
+            this.illegalArguments = illegalArguments;
+            this.latency = latency;
+        }
+
+        /**
+         * @return how many times the operation ran, failed or not
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public long getInsufficientFunds() {
+            return insufficientFunds;
+        }
+
+        public long getIllegalArguments() {
+            return illegalArguments;
+        }
+
+        /**
+         * @return latencies in nanoseconds, of the sampled operations only
+         */
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.Locale;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe lookup of ConcurrentBankAccounts by email.
+ *
+ * Emails are compared ignoring case, so "A@B.com" and "a@b.com" are the same account.
+ * Accounts are split over 64 segments by a hash of their lower case email. Each segment is an
+ * open-addressing table with linear probing: one int[] of hashes and one array of accounts, no
+ * entry objects and no key Strings, since a lookup compares against the email the account
+ * already holds. At the load factors used, that is 11 to 21 bytes per account where a
+ * ConcurrentHashMap spends about 40, plus a lower case copy of every mixed case email.
+ * Lookups are optimistic reads that take no lock; creation and removal lock one segment.
+ */
+public class AccountRegistry {
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int MIN_CAPACITY = 8;
+
+    private static final class Table {
+        // 0 marks an empty slot, stored hashes are never 0
+        final int[] hashes;
+        final ConcurrentBankAccount[] accounts;
+
+        Table(int capacity) {
+            hashes = new int[capacity];
+            accounts = new ConcurrentBankAccount[capacity];
+        }
+    }
+
+    private static final class Segment {
+        final StampedLock lock = new StampedLock();
+        volatile Table table;
+        volatile int size;
+
+        Segment(int capacity) {
+            table = new Table(capacity);
+        }
+    }
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public AccountRegistry() {
+        this(16);
+    }
+
+    /**
+     * @param expectedAccounts how many accounts to size the tables for, avoids resizing while loading
+     */
+    public AccountRegistry(int expectedAccounts) {
+        long perSegment = Math.max(expectedAccounts, 0) / segments.length;
+        int capacity = MIN_CAPACITY;
+        while (capacity < 1 << 30 && capacity * 3L / 4 < perSegment) {
+            capacity *= 2;
+        }
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * Creates an account and registers it under its email
+     *
+     * @param email the email identifying the account
+     * @param startingBalance the starting balance of the account
+     * @return the new account
+     * @throws IllegalArgumentException if email is invalid, already registered, or startingBalance is invalid
+     */
+    public ConcurrentBankAccount create(String email, double startingBalance) {
+        ConcurrentBankAccount account = new ConcurrentBankAccount(email, startingBalance);
+        int hash = hash(email);
+        Segment segment = segments[hash >>> (32 - SEGMENT_BITS)];
+        long stamp = segment.lock.writeLock();
+        try {
+            Table table = segment.table;
+            if (indexOf(table, hash, email) >= 0) {
+                throw new IllegalArgumentException("Email address: " + email + " already has an account");
+            }
+            if ((segment.size + 1) * 4L > table.hashes.length * 3L) {
+                table = resize(table);
+                segment.table = table;
+            }
+            insert(table, hash, account);
+            segment.size++;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+        return account;
+    }
+
+    /**
+     * @return the account registered under email, or null if there is none
+     */
+    public ConcurrentBankAccount find(String email) {
+        if (email == null) {
+            return null;
+        }
+        int hash = hash(email);
+        Segment segment = segments[hash >>> (32 - SEGMENT_BITS)];
+        long stamp = segment.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            Table table = segment.table;
+            int index = indexOf(table, hash, email);
+            ConcurrentBankAccount account = index < 0 ? null : table.accounts[index];
+            if (segment.lock.validate(stamp)) {
+                return account;
+            }
+        }
+        stamp = segment.lock.readLock();
+        try {
+            Table table = segment.table;
+            int index = indexOf(table, hash, email);
+            return index < 0 ? null : table.accounts[index];
+        } finally {
+            segment.lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Removes the account registered under email
+     *
+     * @return the removed account, or null if there was none
+     */
+    public ConcurrentBankAccount remove(String email) {
+        if (email == null) {
+            return null;
+        }
+        int hash = hash(email);
+        Segment segment = segments[hash >>> (32 - SEGMENT_BITS)];
+        long stamp = segment.lock.writeLock();
+        try {
+            Table table = segment.table;
+            int index = indexOf(table, hash, email);
+            if (index < 0) {
+                return null;
+            }
+            ConcurrentBankAccount removed = table.accounts[index];
+            delete(table, index);
+            segment.size--;
+            return removed;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * Lower cases an email, returning the same String when there is nothing to change
+     */
+    static String normalize(String email) {
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return email.toLowerCase(Locale.ROOT);
+            }
+        }
+        return email;
+    }
+
+    /**
+     * Hashes an email as its lower case form without creating it; never returns 0
+     */
+    private static int hash(String email) {
+        int h = 0;
+        for (int i = 0; i < email.length(); i++) {
+            h = 31 * h + lower(email.charAt(i));
+        }
+        h *= 0x9E3779B9; // spread, so the top bits that pick the segment are well mixed
+        return h == 0 ? 1 : h;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean sameEmail(String a, String b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < a.length(); i++) {
+            if (lower(a.charAt(i)) != lower(b.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the slot of an email; may run unlocked, so it tolerates a table changing under it
+     *
+     * @return the slot index, or -1 if the email is not in the table
+     */
+    private static int indexOf(Table table, int hash, String email) {
+        int mask = table.hashes.length - 1;
+        for (int probes = 0, i = hash & mask; probes <= mask; probes++, i = (i + 1) & mask) {
+            int stored = table.hashes[i];
+            if (stored == 0) {
+                return -1;
+            }
+            if (stored == hash) {
+                ConcurrentBankAccount account = table.accounts[i];
+                if (account != null && sameEmail(account.getEmail(), email)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static void insert(Table table, int hash, ConcurrentBankAccount account) {
+        int mask = table.hashes.length - 1;
+        int i = hash & mask;
+        while (table.hashes[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table.accounts[i] = account;
+        table.hashes[i] = hash;
+    }
+
+    private static Table resize(Table table) {
+        if (table.hashes.length == 1 << 30) {
+            throw new IllegalStateException("Account registry is full");
+        }
+        Table bigger = new Table(table.hashes.length * 2);
+        for (int i = 0; i < table.hashes.length; i++) {
+            if (table.hashes[i] != 0) {
+                insert(bigger, table.hashes[i], table.accounts[i]);
+            }
+        }
+        return bigger;
+    }
+
+    /**
+     * Empties a slot and shifts later entries of its probe run back, so no tombstones are needed
+     */
+    private static void delete(Table table, int index) {
+        int mask = table.hashes.length - 1;
+        int hole = index;
+        for (int i = (index + 1) & mask; table.hashes[i] != 0; i = (i + 1) & mask) {
+            int home = table.hashes[i] & mask;
+            // the entry at i may fill the hole if its home slot is not between the hole and i
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                table.hashes[hole] = table.hashes[i];
+                table.accounts[hole] = table.accounts[i];
+                hole = i;
+            }
+        }
+        table.hashes[hole] = 0;
+        table.accounts[hole] = null;
+    }
+}
@@ -0,0 +1,161 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs account requests against an AccountRegistry, each on its own virtual thread.
+ *
+ * Blocking requests cost a parked virtual thread rather than a platform thread, so hundreds of
+ * thousands can be in flight at once. Concurrency per account is bounded by semaphores striped on
+ * the account email: a request waiting for a hot account parks without holding a carrier thread.
+ * ConcurrentBankAccount only uses j.u.c. locks, never synchronized, so requests never pin carriers.
+ */
+public class AccountRequestExecutor implements AutoCloseable {
+
+    static final int STRIPES = 4096;
+
+    private final AccountRegistry registry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore[] stripes = new Semaphore[STRIPES];
+
+    /**
+     * @param registry the accounts requests are run against
+     * @param permitsPerAccount how many requests may run on one account at the same time
+     */
+    public AccountRequestExecutor(AccountRegistry registry, int permitsPerAccount) {
+        if (permitsPerAccount < 1) {
+            throw new IllegalArgumentException("permitsPerAccount must be at least 1.");
+        }
+        this.registry = registry;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Semaphore(permitsPerAccount);
+        }
+    }
+
+    /**
+     * Runs a request on a virtual thread once the account it works on has a free permit
+     *
+     * @param email the account the request works on
+     * @param request the work to run
+     * @return a future with the result of request, or the exception it threw
+     */
+    public <T> CompletableFuture<T> submit(String email, Callable<T> request) {
+        return submit(email, null, request);
+    }
+
+    /**
+     * Queues a deposit, see {@link ConcurrentBankAccount#deposit(double)}
+     *
+     * @return a future completed once the deposit is done, or failed with IllegalArgumentException if there is no such account
+     */
+    public CompletableFuture<Void> deposit(String email, double amount) {
+        return submit(email, null, () -> {
+            find(email).deposit(amount);
+            return null;
+        });
+    }
+
+    /**
+     * Queues a withdrawal, see {@link ConcurrentBankAccount#withdraw(double)}
+     *
+     * @return a future completed once the withdrawal is done, or failed with InsufficientFundsException
+     */
+    public CompletableFuture<Void> withdraw(String email, double amount) {
+        return submit(email, null, () -> {
+            find(email).withdraw(amount);
+            return null;
+        });
+    }
+
+    /**
+     * Queues a transfer, see {@link ConcurrentBankAccount#transfer(ConcurrentBankAccount, double)}
+     *
+     * @return a future completed once the transfer is done, or failed with InsufficientFundsException
+     */
+    public CompletableFuture<Void> transfer(String fromEmail, String toEmail, double amount) {
+        return submit(fromEmail, toEmail, () -> {
+            find(fromEmail).transfer(find(toEmail), amount);
+            return null;
+        });
+    }
+
+    /**
+     * @return a future with the balance of the account
+     */
+    public CompletableFuture<Double> getBalance(String email) {
+        return submit(email, null, () -> find(email).getBalance());
+    }
+
+    /**
+     * Stops taking requests and waits for the ones already submitted to finish
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private <T> CompletableFuture<T> submit(String email, String otherEmail, Callable<T> request) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            // Two stripes are always taken in index order so transfers cannot deadlock on permits
+            int first = stripe(email);
+            int second = otherEmail == null ? first : stripe(otherEmail);
+            if (second < first) {
+                int swap = first;
+                first = second;
+                second = swap;
+            }
+            try {
+                stripes[first].acquire();
+                try {
+                    if (second != first) {
+                        stripes[second].acquire();
+                    }
+                    try {
+                        future.complete(request.call());
+                    } finally {
+                        if (second != first) {
+                            stripes[second].release();
+                        }
+                    }
+                } finally {
+                    stripes[first].release();
+                }
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private ConcurrentBankAccount find(String email) {
+        ConcurrentBankAccount account = registry.find(email);
+        if (account == null) {
+            throw new IllegalArgumentException("No account for email address: " + email);
+        }
+        return account;
+    }
+
+    /**
+     * @return how many requests are waiting for a permit
+     */
+    int waitingRequests() {
+        int waiting = 0;
+        for (Semaphore stripe : stripes) {
+            waiting += stripe.getQueueLength();
+        }
+        return waiting;
+    }
+
+    static int stripe(String email) {
+        if (email == null) {
+            return 0;
+        }
+        int hash = AccountRegistry.normalize(email).hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
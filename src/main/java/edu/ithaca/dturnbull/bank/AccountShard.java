@@ -0,0 +1,107 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The accounts of one shard of a {@link ShardedAccounts} cluster, keyed by lower case email.
+ *
+ * A shard is not thread-safe: its transport must hand it one command at a time, which is what
+ * lets every command, including both phases of a cross-shard transfer, run without locks.
+ * Money held back by a prepared debit is already gone from the balance, so no later command
+ * can spend it before the transfer commits or aborts.
+ */
+public class AccountShard {
+
+    private static final class Pending {
+        final BankAccount account;
+        final long cents;
+        final boolean credit;
+
+        Pending(BankAccount account, long cents, boolean credit) {
+            this.account = account;
+            this.cents = cents;
+            this.credit = credit;
+        }
+    }
+
+    private final Map<String, BankAccount> accounts = new HashMap<>();
+    private final Map<Long, Pending> pending = new HashMap<>();
+
+    /**
+     * Runs one command
+     *
+     * @return the balance in cents of the account for BALANCE, 0 otherwise
+     * @throws IllegalArgumentException if an account is missing, already exists, an amount is invalid,
+     *         or a prepare reuses the id of a transaction still pending here
+     * @throws InsufficientFundsException if a withdrawal, transfer or debit is more than the balance
+     */
+    public long execute(ShardCommand command) throws InsufficientFundsException {
+        switch (command.getType()) {
+            case ShardCommand.OPEN -> {
+                BankAccount account = BankAccount.ofCents(command.getEmail(), command.getCents());
+                if (accounts.putIfAbsent(AccountRegistry.normalize(command.getEmail()), account) != null) {
+                    throw new IllegalArgumentException("Email address: " + command.getEmail() + " already has an account");
+                }
+            }
+            case ShardCommand.DEPOSIT -> find(command.getEmail()).depositCents(command.getCents());
+            case ShardCommand.WITHDRAW -> find(command.getEmail()).withdrawCents(command.getCents());
+            case ShardCommand.BALANCE -> {
+                return find(command.getEmail()).getBalanceCents();
+            }
+            case ShardCommand.TRANSFER -> find(command.getEmail()).transferCents(find(command.getToEmail()), command.getCents());
+            case ShardCommand.PREPARE_DEBIT -> {
+                checkNewTransaction(command.getTransactionId());
+                BankAccount account = find(command.getEmail());
+                account.withdrawCents(command.getCents());
+                pending.put(command.getTransactionId(), new Pending(account, command.getCents(), false));
+            }
+            case ShardCommand.PREPARE_CREDIT -> {
+                if (!BankAccount.isCentsValid(command.getCents())) {
+                    throw new IllegalArgumentException("Invalid transfer amount.");
+                }
+                checkNewTransaction(command.getTransactionId());
+                BankAccount account = find(command.getEmail());
+                if (!BankAccount.hasRoomFor(account.getBalanceCents(), command.getCents())) {
+                    throw new IllegalArgumentException("Balance cannot go over " + BankAccount.MAX_BALANCE_CENTS + " cents.");
+                }
+                pending.put(command.getTransactionId(), new Pending(account, command.getCents(), true));
+            }
+            case ShardCommand.COMMIT -> {
+                Pending done = pending.remove(command.getTransactionId());
+                if (done != null && done.credit) {
+                    done.account.depositCents(done.cents);
+                }
+            }
+            case ShardCommand.ABORT -> {
+                Pending undone = pending.remove(command.getTransactionId());
+                if (undone != null && !undone.credit) {
+                    undone.account.depositCents(undone.cents);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown command type: " + command.getType());
+        }
+        return 0;
+    }
+
+    /**
+     * @return how many accounts this shard holds
+     */
+    public int size() {
+        return accounts.size();
+    }
+
+    private void checkNewTransaction(long transactionId) {
+        if (pending.containsKey(transactionId)) {
+            throw new IllegalArgumentException("Transaction " + transactionId + " is already pending.");
+        }
+    }
+
+    private BankAccount find(String email) {
+        BankAccount account = email == null ? null : accounts.get(AccountRegistry.normalize(email));
+        if (account == null) {
+            throw new IllegalArgumentException("No account for email address: " + email);
+        }
+        return account;
+    }
+}
@@ -0,0 +1,215 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compact binary snapshots of an AccountStore, and crash recovery from a snapshot plus the journal tail.
+ *
+ * A snapshot is a 32 byte header (magic, account count, email bytes, journal position) followed by
+ * the store's balance, email offset and email arrays exactly as they are held in memory, so loading
+ * is a bulk copy out of a memory-mapped file rather than parsing.
+ */
+public final class AccountSnapshot {
+
+    private static final long MAGIC = 0x42414E4B534E4150L; // "BANKSNAP"
+    private static final int HEADER_SIZE = 32;
+
+    private AccountSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of every account, replacing file atomically once it is complete
+     *
+     * @param store the accounts to save, which must not change while this runs
+     * @param journal the journal the store writes to, synced so the snapshot never gets ahead of it, or null
+     * @param file where to write the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void write(AccountStore store, TransactionJournal journal, Path file) throws IOException {
+        long journalPosition = 0;
+        if (journal != null) {
+            journal.sync();
+            journalPosition = journal.position();
+        }
+
+        int count = store.size();
+        int emailBytes = store.emailBytesUsed();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC).putInt(count).putInt(emailBytes).putLong(journalPosition).flip();
+            channel.write(header, 0);
+
+            long offset = HEADER_SIZE;
+            map(channel, FileChannel.MapMode.READ_WRITE, offset, 8L * count).asLongBuffer().put(store.balances(), 0, count);
+            offset += 8L * count;
+            map(channel, FileChannel.MapMode.READ_WRITE, offset, 4L * count).asIntBuffer().put(store.emailEnds(), 0, count);
+            offset += 4L * count;
+            map(channel, FileChannel.MapMode.READ_WRITE, offset, emailBytes).put(store.emailBytes(), 0, emailBytes);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the accounts in a snapshot, without replaying any journal records
+     *
+     * @param file the snapshot to read
+     * @param journal the journal the loaded store should write to, or null
+     * @return the store as it was when the snapshot was written
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static AccountStore load(Path file, TransactionJournal journal) throws IOException {
+        return load(file, journal, null);
+    }
+
+    /**
+     * Loads the accounts in a snapshot, without replaying any journal records
+     *
+     * @param file the snapshot to read
+     * @param journal the journal the loaded store should write to, or null
+     * @param history where the loaded store keeps recent transactions from now on, or null
+     * @return the store as it was when the snapshot was written
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static AccountStore load(Path file, TransactionJournal journal, TransactionHistory history) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, file);
+            int count = header.getInt(8);
+            int emailBytes = header.getInt(12);
+
+            long[] balances = new long[Math.max(count, 1)];
+            int[] emailEnds = new int[Math.max(count, 1)];
+            byte[] emails = new byte[Math.max(emailBytes, 16)];
+            long offset = HEADER_SIZE;
+            map(channel, FileChannel.MapMode.READ_ONLY, offset, 8L * count).asLongBuffer().get(balances, 0, count);
+            offset += 8L * count;
+            map(channel, FileChannel.MapMode.READ_ONLY, offset, 4L * count).asIntBuffer().get(emailEnds, 0, count);
+            offset += 4L * count;
+            map(channel, FileChannel.MapMode.READ_ONLY, offset, emailBytes).get(emails, 0, emailBytes);
+            return new AccountStore(balances, emailEnds, emails, count, journal, history);
+        }
+    }
+
+    /**
+     * Rebuilds a store after a restart from the latest snapshot and the journal records written after it.
+     *
+     * Only successful operations are journaled, so the tail is replayed as plain balance changes.
+     * Those add up in any order, which lets each of the parallelism threads own a range of account
+     * ids and apply just the changes to its own accounts.
+     *
+     * @param snapshot the latest snapshot, or a path that does not exist to replay the whole journal
+     * @param journal the journal to replay, which the returned store also writes to
+     * @param parallelism how many threads replay the journal tail
+     * @return the recovered store
+     * @throws IOException if the snapshot or journal cannot be read
+     */
+    public static AccountStore recover(Path snapshot, TransactionJournal journal, int parallelism) throws IOException {
+        return recover(snapshot, journal, null, parallelism);
+    }
+
+    /**
+     * Rebuilds a store after a restart, see {@link #recover(Path, TransactionJournal, int)}, that keeps
+     * recording transaction history. Replayed journal records are not added to the history.
+     *
+     * @param snapshot the latest snapshot, or a path that does not exist to replay the whole journal
+     * @param journal the journal to replay, which the returned store also writes to
+     * @param history where the recovered store keeps recent transactions from now on, or null
+     * @param parallelism how many threads replay the journal tail
+     * @return the recovered store
+     * @throws IOException if the snapshot or journal cannot be read
+     */
+    public static AccountStore recover(Path snapshot, TransactionJournal journal, TransactionHistory history, int parallelism)
+            throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1.");
+        }
+
+        AccountStore store;
+        long from;
+        if (Files.exists(snapshot)) {
+            store = load(snapshot, journal, history);
+            try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                from = readHeader(channel, snapshot).getLong(16);
+            }
+        } else {
+            store = new AccountStore(16, journal, history);
+            from = 0;
+        }
+        long to = journal.position();
+
+        // Accounts created after the snapshot take their ids in journal order, so they are added first
+        journal.forEachRecord(from, to, (type, accountId, counterpartyId, cents, email) -> {
+            if (type == TransactionJournal.CREATE) {
+                store.append(email, cents);
+            }
+        });
+
+        int accounts = store.size();
+        int partitions = Math.max(1, Math.min(parallelism, accounts));
+        long[] balances = store.balances();
+        ExecutorService pool = Executors.newFixedThreadPool(partitions);
+        try {
+            List<Future<Long>> replays = new ArrayList<>();
+            for (int p = 0; p < partitions; p++) {
+                int low = (int) ((long) accounts * p / partitions);
+                int high = (int) ((long) accounts * (p + 1) / partitions);
+                replays.add(pool.submit(() -> journal.forEachRecord(from, to, (type, accountId, counterpartyId, cents, email) -> {
+                    if (type == TransactionJournal.CREATE) {
+                        return;
+                    }
+                    long delta = type == TransactionJournal.DEPOSIT ? cents : -cents;
+                    if (accountId >= low && accountId < high) {
+                        balances[accountId] += delta;
+                    }
+                    if (type == TransactionJournal.TRANSFER && counterpartyId >= low && counterpartyId < high) {
+                        balances[counterpartyId] += cents;
+                    }
+                })));
+            }
+            for (Future<Long> replay : replays) {
+                replay.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while replaying the journal", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not replay the journal", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return store;
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // keep reading until the header is full or the file ends
+        }
+        if (header.hasRemaining() || header.getLong(0) != MAGIC) {
+            throw new IOException(file + " is not an account snapshot");
+        }
+        return header;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long offset, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(mode, offset, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
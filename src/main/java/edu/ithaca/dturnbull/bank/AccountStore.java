@@ -0,0 +1,397 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact storage for millions of accounts, addressed by an int id instead of one object per account.
+ *
+ * Balances live in one long[] of cents. Emails, which isEmailValid guarantees are ASCII,
+ * are packed one byte per character into a shared byte[] with an int[] of end offsets.
+ * That is 12 bytes per account plus the email itself. Deposits, withdrawals and transfers
+ * follow the same rules as BankAccount. Like BankAccount, this class is not thread-safe.
+ *
+ * When given a TransactionJournal, every successful change is appended to it.
+ * When given a TransactionHistory, every deposit, withdrawal and transfer is added to the
+ * history of the accounts involved.
+ */
+public class AccountStore {
+
+    /**
+     * Largest array length the JVM reliably allows
+     */
+    static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private long[] balances;
+    private int[] emailEnds;
+    private byte[] emailBytes;
+    private int size;
+    private final TransactionJournal journal;
+    private final TransactionHistory history;
+
+    public AccountStore() {
+        this(16);
+    }
+
+    /**
+     * @param expectedAccounts how many accounts to make room for up front
+     */
+    public AccountStore(int expectedAccounts) {
+        this(expectedAccounts, null);
+    }
+
+    /**
+     * @param expectedAccounts how many accounts to make room for up front
+     * @param journal where to record every successful change, or null to keep state in memory only
+     */
+    public AccountStore(int expectedAccounts, TransactionJournal journal) {
+        this(expectedAccounts, journal, null);
+    }
+
+    /**
+     * @param expectedAccounts how many accounts to make room for up front
+     * @param journal where to record every successful change, or null to keep state in memory only
+     * @param history where to keep recent transactions of each account, or null to keep none
+     * @throws IllegalArgumentException if expectedAccounts is more than an array can hold
+     */
+    public AccountStore(int expectedAccounts, TransactionJournal journal, TransactionHistory history) {
+        if (expectedAccounts > MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException("expectedAccounts cannot be more than " + MAX_ARRAY_LENGTH + ".");
+        }
+        this.journal = journal;
+        this.history = history;
+        int capacity = Math.max(expectedAccounts, 1);
+        balances = new long[capacity];
+        emailEnds = new int[capacity];
+        // room for 16 email bytes per account, capped so large stores do not overflow the int length
+        emailBytes = new byte[(int) Math.min(MAX_ARRAY_LENGTH, capacity * 16L)];
+    }
+
+    /**
+     * Wraps arrays loaded from a snapshot, which the store takes ownership of
+     */
+    AccountStore(long[] balances, int[] emailEnds, byte[] emailBytes, int size, TransactionJournal journal, TransactionHistory history) {
+        this.balances = balances;
+        this.emailEnds = emailEnds;
+        this.emailBytes = emailBytes;
+        this.size = size;
+        this.journal = journal;
+        this.history = history;
+    }
+
+    /**
+     * Creates an account
+     *
+     * @param email the email identifying the account
+     * @param startingBalance the starting balance of the account
+     * @return the id of the new account
+     * @throws IllegalArgumentException if email or startingBalance is invalid
+     */
+    public int create(String email, double startingBalance) {
+        if (!BankAccount.isAmountValid(startingBalance) && startingBalance != 0.0) {
+            throw new IllegalArgumentException("Starting balance is invalid.");
+        }
+        return createCents(email, BankAccount.toCents(startingBalance));
+    }
+
+    /**
+     * Creates an account with a starting balance given in whole cents
+     *
+     * @param email the email identifying the account
+     * @param startingCents the starting balance in cents, zero or more
+     * @return the id of the new account
+     * @throws IllegalArgumentException if email is invalid or startingCents is negative or more than MAX_BALANCE_CENTS
+     */
+    public int createCents(String email, long startingCents) {
+        if (!BankAccount.isEmailValid(email)) {
+            throw new IllegalArgumentException("Email address: " + email + " is invalid, cannot create account");
+        }
+
+        if (!BankAccount.isCentsValid(startingCents) && startingCents != 0 || startingCents > BankAccount.MAX_BALANCE_CENTS) {
+            throw new IllegalArgumentException("Starting balance is invalid.");
+        }
+
+        int id = append(email, startingCents);
+        if (journal != null) {
+            journal.appendCreate(email, startingCents);
+        }
+        return id;
+    }
+
+    /**
+     * Adds an already validated account without journaling it
+     */
+    int append(String email, long startingCents) {
+        int start = reserve(email.length(), startingCents);
+        for (int i = 0; i < email.length(); i++) {
+            emailBytes[start + i] = (byte) email.charAt(i); // ASCII only, so no charset is needed
+        }
+        return size - 1;
+    }
+
+    /**
+     * Adds an already validated account whose email is given as ASCII bytes, journaling it like createCents
+     */
+    int appendAscii(byte[] email, int from, int to, long startingCents) {
+        int start = reserve(to - from, startingCents);
+        System.arraycopy(email, from, emailBytes, start, to - from);
+        if (journal != null) {
+            journal.appendCreate(new String(email, from, to - from, StandardCharsets.US_ASCII), startingCents);
+        }
+        return size - 1;
+    }
+
+    /**
+     * Adds a row for a new account and makes room for its email
+     *
+     * @return where the email bytes of the new account start
+     */
+    private int reserve(int emailLength, long startingCents) {
+        int start = emailStart(size);
+        long end = (long) start + emailLength;
+        if (end > MAX_ARRAY_LENGTH) {
+            throw new IllegalStateException("Email storage is full");
+        }
+        if (size == balances.length) {
+            if (size == MAX_ARRAY_LENGTH) {
+                throw new IllegalStateException("Account storage is full");
+            }
+            int capacity = (int) Math.min(MAX_ARRAY_LENGTH, 2L * size);
+            balances = Arrays.copyOf(balances, capacity);
+            emailEnds = Arrays.copyOf(emailEnds, capacity);
+        }
+        if (end > emailBytes.length) {
+            emailBytes = Arrays.copyOf(emailBytes, (int) Math.min(MAX_ARRAY_LENGTH, Math.max(end, 2L * emailBytes.length)));
+        }
+
+        balances[size] = startingCents;
+        emailEnds[size] = (int) end;
+        size++;
+        return start;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getEmail(int id) {
+        checkId(id);
+        int start = emailStart(id);
+        return new String(emailBytes, start, emailEnds[id] - start, StandardCharsets.US_ASCII);
+    }
+
+    public double getBalance(int id) {
+        return getBalanceCents(id) / 100.0;
+    }
+
+    public long getBalanceCents(int id) {
+        checkId(id);
+        return balances[id];
+    }
+
+    /**
+     * Adds up every balance in one pass over the balance array
+     *
+     * @return the total of all balances in cents
+     */
+    public long totalBalanceCents() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += balances[i];
+        }
+        return total;
+    }
+
+    /**
+     * Deposits money into an account.
+     *
+     * @param id the account to deposit into
+     * @param amount the amount of money to deposit
+     * @throws IllegalArgumentException if id does not exist or amount is invalid being negative or more than 2 decimal places,
+     *         or the balance would go over MAX_BALANCE_CENTS
+     * @post if amount is valid and greater than 0, balance increases by that amount
+     */
+    public void deposit(int id, double amount) {
+        depositCents(id, validCents(amount, "Invalid deposit amount."));
+    }
+
+    /**
+     * Deposits money given in cents into an account.
+     *
+     * @param id the account to deposit into
+     * @param cents the amount of money to deposit in cents
+     * @throws IllegalArgumentException if id does not exist or cents is negative or the balance would go over MAX_BALANCE_CENTS
+     * @post if cents is greater than 0, balance increases by that amount
+     */
+    public void depositCents(int id, long cents) {
+        checkId(id);
+        if (cents == 0) {
+            return;
+        }
+
+        if (!BankAccount.isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid deposit amount.");
+        }
+
+        if (!BankAccount.hasRoomFor(balances[id], cents)) {
+            throw new IllegalArgumentException("Balance cannot go over " + BankAccount.MAX_BALANCE_CENTS + " cents.");
+        }
+        balances[id] += cents;
+        if (journal != null) {
+            journal.appendDeposit(id, cents);
+        }
+        if (history != null) {
+            history.record(id, System.currentTimeMillis(), cents, TransactionHistory.NO_COUNTERPARTY);
+        }
+    }
+
+    /**
+     * Withdraws money from an account.
+     *
+     * @param id the account to withdraw from
+     * @param amount the amount to withdraw
+     * @throws IllegalArgumentException if id does not exist or amount is invalid being negative or more than 2 decimal places
+     * @throws InsufficientFundsException if amount is greater than the current balance
+     * @post If amount is between 0 and balance (inclusive), balance is reduced by amount.
+     */
+    public void withdraw(int id, double amount) throws InsufficientFundsException {
+        withdrawCents(id, validCents(amount, "Invalid withdraw amount."));
+    }
+
+    /**
+     * Withdraws money given in cents from an account.
+     *
+     * @param id the account to withdraw from
+     * @param cents the amount to withdraw in cents
+     * @throws IllegalArgumentException if id does not exist or cents is negative
+     * @throws InsufficientFundsException if cents is greater than the current balance
+     * @post If cents is between 0 and balance (inclusive), balance is reduced by cents.
+     */
+    public void withdrawCents(int id, long cents) throws InsufficientFundsException {
+        checkId(id);
+        if (cents == 0) {
+            return;
+        }
+
+        if (!BankAccount.isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid withdraw amount.");
+        }
+
+        if (cents > balances[id]) {
+            throw new InsufficientFundsException("Not enough money");
+        }
+        balances[id] -= cents;
+        if (journal != null) {
+            journal.appendWithdraw(id, cents);
+        }
+        if (history != null) {
+            history.record(id, System.currentTimeMillis(), -cents, TransactionHistory.NO_COUNTERPARTY);
+        }
+    }
+
+    /**
+     * Transfers money from one account to another
+     *
+     * @param fromId the account the money comes out of
+     * @param toId the account that is receiving the money
+     * @param amount the amount of money to transfer
+     * @throws IllegalArgumentException if either id does not exist or amount is invalid being negative or more than 2 decimal places,
+     *         or toId would go over MAX_BALANCE_CENTS
+     * @throws InsufficientFundsException if amount is greater than the balance of fromId
+     * @post if success, fromId balance decreases by the amount and toId balance increases by the same amount.
+     */
+    public void transfer(int fromId, int toId, double amount) throws InsufficientFundsException {
+        transferCents(fromId, toId, validCents(amount, "Invalid transfer amount."));
+    }
+
+    /**
+     * Transfers money given in cents from one account to another
+     *
+     * @param fromId the account the money comes out of
+     * @param toId the account that is receiving the money
+     * @param cents the amount of money to transfer in cents
+     * @throws IllegalArgumentException if either id does not exist or cents is negative or toId would go over MAX_BALANCE_CENTS
+     * @throws InsufficientFundsException if cents is greater than the balance of fromId
+     * @post if success, fromId balance decreases by cents and toId balance increases by the same amount.
+     */
+    public void transferCents(int fromId, int toId, long cents) throws InsufficientFundsException {
+        checkId(fromId);
+        checkId(toId);
+        if (cents == 0) {
+            return;
+        }
+
+        if (!BankAccount.isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid transfer amount.");
+        }
+
+        if (fromId != toId && !BankAccount.hasRoomFor(balances[toId], cents)) {
+            throw new IllegalArgumentException("Balance cannot go over " + BankAccount.MAX_BALANCE_CENTS + " cents.");
+        }
+        if (cents > balances[fromId]) {
+            throw new InsufficientFundsException("Not enough money");
+        }
+        balances[fromId] -= cents;
+        balances[toId] += cents;
+        if (journal != null) {
+            journal.appendTransfer(fromId, toId, cents);
+        }
+        if (history != null) {
+            long now = System.currentTimeMillis();
+            history.record(fromId, now, -cents, toId);
+            history.record(toId, now, cents, fromId);
+        }
+    }
+
+    /**
+     * Changes a balance by an already validated amount without journaling it, used when replaying
+     */
+    void adjust(int id, long deltaCents) {
+        balances[id] += deltaCents;
+    }
+
+    long[] balances() {
+        return balances;
+    }
+
+    int[] emailEnds() {
+        return emailEnds;
+    }
+
+    byte[] emailBytes() {
+        return emailBytes;
+    }
+
+    /**
+     * @return how many bytes of the email array are in use
+     */
+    int emailBytesUsed() {
+        return emailStart(size);
+    }
+
+    private int emailStart(int id) {
+        return id == 0 ? 0 : emailEnds[id - 1];
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("No account with id " + id);
+        }
+    }
+
+    /**
+     * @return amount in cents, 0 for a zero amount
+     * @throws IllegalArgumentException with message if amount is negative or has more than 2 decimal places
+     */
+    private static long validCents(double amount, String message) {
+        if (amount == 0.0) {
+            return 0;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException(message);
+        }
+
+        return BankAccount.toCents(amount);
+    }
+}
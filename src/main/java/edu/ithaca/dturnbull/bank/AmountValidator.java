@@ -0,0 +1,72 @@
+package edu.ithaca.dturnbull.bank;
+
+/**
+ * Validates whole arrays of amounts with the same rules as {@link BankAccount#isAmountValid(double)}
+ * and {@link BankAccount#isCentsValid(long)}.
+ *
+ * The loops have no branches on the data: each check is a few arithmetic ops and compares, so
+ * random mixes of valid and invalid amounts cost no mispredictions and the JIT can use SIMD.
+ * Math.rint finds the same nearest whole cent as Math.round except on exact halves, which are
+ * invalid either way; amounts whose cents pass 2^63 are invalid, as Math.round clamps them.
+ */
+public final class AmountValidator {
+
+    private static final double TOLERANCE = 0.000000001;
+    private static final double MAX_CENTS = 0x1p63;
+
+    private AmountValidator() {
+    }
+
+    /**
+     * @return how many amounts isAmountValid accepts
+     */
+    public static int countValid(double[] amounts) {
+        int count = 0;
+        for (double amount : amounts) {
+            count += isValid(amount) ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Sets bit i of bitmap (bit i % 64 of word i / 64) to whether isAmountValid accepts amounts[i]
+     *
+     * @param amounts the amounts to check
+     * @param bitmap at least (amounts.length + 63) / 64 words, overwritten
+     * @return how many amounts are valid
+     * @throws IllegalArgumentException if bitmap is too short
+     */
+    public static int validate(double[] amounts, long[] bitmap) {
+        if (bitmap.length < (amounts.length + 63) / 64) {
+            throw new IllegalArgumentException("bitmap needs at least " + (amounts.length + 63) / 64 + " words.");
+        }
+        int count = 0;
+        for (int word = 0; word * 64 < amounts.length; word++) {
+            int base = word * 64;
+            int end = Math.min(64, amounts.length - base);
+            long bits = 0;
+            for (int j = 0; j < end; j++) {
+                bits |= (isValid(amounts[base + j]) ? 1L : 0L) << j;
+            }
+            bitmap[word] = bits;
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    /**
+     * @return how many amounts in cents isCentsValid accepts
+     */
+    public static int countValidCents(long[] cents) {
+        int count = 0;
+        for (long amount : cents) {
+            count += amount > 0 ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static boolean isValid(double amount) {
+        double cents = amount * 100;
+        return amount > 0 & cents <= MAX_CENTS & Math.abs(cents - Math.rint(cents)) < TOLERANCE;
+    }
+}
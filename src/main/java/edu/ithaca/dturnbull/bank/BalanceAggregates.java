@@ -0,0 +1,101 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals over a set of ConcurrentBankAccounts, kept up to date by the accounts themselves.
+ *
+ * Accounts created with a BalanceAggregates report every balance change to it, so the total
+ * balance, the number of accounts and how many accounts fall in each balance bucket can be read
+ * in O(1) instead of walking every account. Counters are LongAdders, so concurrent writers do not
+ * contend on them. Each number is exact once writes stop; while they run, a read may miss
+ * changes still in progress, and the buckets may briefly not add up to the account count.
+ * A transfer between two accounts of the same aggregates never changes the total.
+ */
+public class BalanceAggregates {
+
+    private final long[] upperBoundsCents;
+    private final LongAdder totalCents = new LongAdder();
+    private final LongAdder accounts = new LongAdder();
+    private final LongAdder[] buckets;
+
+    /**
+     * @param upperBoundsCents ascending bucket bounds in cents; bucket i holds balances below
+     *                         upperBoundsCents[i] and not below the bound before it, the last bucket
+     *                         holds everything from the last bound up
+     * @throws IllegalArgumentException if the bounds are not strictly ascending
+     */
+    public BalanceAggregates(long... upperBoundsCents) {
+        for (int i = 1; i < upperBoundsCents.length; i++) {
+            if (upperBoundsCents[i] <= upperBoundsCents[i - 1]) {
+                throw new IllegalArgumentException("Bucket bounds must be strictly ascending.");
+            }
+        }
+        this.upperBoundsCents = upperBoundsCents.clone();
+        buckets = new LongAdder[upperBoundsCents.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public long getTotalBalanceCents() {
+        return totalCents.sum();
+    }
+
+    public double getTotalBalance() {
+        return totalCents.sum() / 100.0;
+    }
+
+    public long getAccountCount() {
+        return accounts.sum();
+    }
+
+    /**
+     * @return how many buckets there are, one more than the number of bounds
+     */
+    public int getBucketCount() {
+        return buckets.length;
+    }
+
+    /**
+     * @return how many accounts have a balance in bucket
+     */
+    public long getAccountsInBucket(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    /**
+     * @return the bucket a balance in cents falls into
+     */
+    public int bucketOf(long cents) {
+        int index = Arrays.binarySearch(upperBoundsCents, cents);
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+
+    /**
+     * Counts a new account
+     */
+    void opened(long cents) {
+        accounts.increment();
+        totalCents.add(cents);
+        buckets[bucketOf(cents)].increment();
+    }
+
+    /**
+     * Records one balance change of an account
+     *
+     * @param countTotal false when the other side of a transfer within these aggregates cancels it out
+     */
+    void changed(long beforeCents, long afterCents, boolean countTotal) {
+        if (countTotal) {
+            totalCents.add(afterCents - beforeCents);
+        }
+        int before = bucketOf(beforeCents);
+        int after = bucketOf(afterCents);
+        if (before != after) {
+            buckets[after].increment();
+            buckets[before].decrement();
+        }
+    }
+}
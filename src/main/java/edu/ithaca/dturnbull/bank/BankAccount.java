@@ -2,8 +2,14 @@ package edu.ithaca.dturnbull.bank;
 
 public class BankAccount {
 
+    /**
+     * Largest balance an account can hold, in cents. It is half the range of long, so adding
+     * a valid amount to a balance, or adding two balances, can never overflow.
+     */
+    public static final long MAX_BALANCE_CENTS = Long.MAX_VALUE / 2;
+
     private String email;
-    private double balance;
+    private long balanceCents;
 
     /**
      * @throws IllegalArgumentException if email is invalid
@@ -13,17 +19,39 @@ public class BankAccount {
             throw new IllegalArgumentException("Email address: " + email + " is invalid, cannot create account");
         }
 
-        if (!isAmountValid(startingBalance) && startingBalance != 0.0) {
+        if (!isAmountValid(startingBalance) && startingBalance != 0.0 || toCents(startingBalance) > MAX_BALANCE_CENTS) {
             throw new IllegalArgumentException("Starting balance is invalid.");
         }
 
         this.email = email;
-        this.balance = startingBalance;
+        this.balanceCents = toCents(startingBalance);
+    }
+
+    /**
+     * Creates an account with a starting balance given in whole cents
+     *
+     * @param email the email identifying the account
+     * @param startingCents the starting balance in cents, zero or more
+     * @return the new account
+     * @throws IllegalArgumentException if email is invalid or startingCents is negative or more than MAX_BALANCE_CENTS
+     */
+    public static BankAccount ofCents(String email, long startingCents) {
+        if (!isCentsValid(startingCents) && startingCents != 0 || startingCents > MAX_BALANCE_CENTS) {
+            throw new IllegalArgumentException("Starting balance is invalid.");
+        }
+
+        BankAccount account = new BankAccount(email, 0.0);
+        account.balanceCents = startingCents;
+        return account;
     }
 
 
     public double getBalance(){
-        return balance;
+        return balanceCents / 100.0;
+    }
+
+    public long getBalanceCents(){
+        return balanceCents;
     }
 
     public String getEmail(){
@@ -32,7 +60,7 @@ public class BankAccount {
 
     /**
      * Checks if the amount is positive and has no more than 2 decimals
-     * 
+     *
      * @param amount the amount of money to check
      * @return true if amount is valid, false otherwise
      */
@@ -51,6 +79,33 @@ public class BankAccount {
         }
     }
 
+    /**
+     * Checks if the amount in cents is positive, the cents equivalent of isAmountValid
+     *
+     * @param cents the amount of money to check in cents
+     * @return true if cents is valid, false otherwise
+     */
+    public static boolean isCentsValid(long cents) {
+        return cents > 0;
+    }
+
+    /**
+     * Converts an amount that already passed isAmountValid to whole cents
+     */
+    static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Checks if a balance can take cents more without going over MAX_BALANCE_CENTS
+     *
+     * @param balanceCents a balance of at most MAX_BALANCE_CENTS
+     * @param cents a valid amount in cents
+     */
+    static boolean hasRoomFor(long balanceCents, long cents) {
+        return cents <= MAX_BALANCE_CENTS - balanceCents;
+    }
+
     /**
      * Withdraws money from this account.
      *
@@ -68,46 +123,81 @@ public class BankAccount {
             throw new IllegalArgumentException("Invalid withdraw amount.");
         }
 
-        if (amount <= balance) {
-            balance -= amount;
-        } else {
-            throw new InsufficientFundsException("Not enough money");
-        }
+        withdrawCents(toCents(amount));
     }
 
+    /**
+     * Withdraws money given in cents from this account.
+     *
+     * @param cents the amount to withdraw in cents
+     * @throws IllegalArgumentException if cents is negative
+     * @throws InsufficientFundsException if cents is greater than the current balance
+     * @post If cents is between 0 and balance (inclusive), balance is reduced by cents.
+     */
+    public void withdrawCents(long cents) throws InsufficientFundsException {
+        if (cents == 0) {
+            return;
+        }
 
+        if (!isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid withdraw amount.");
+        }
 
-    public static boolean isEmailValid(String email){
-        // If no email provided, return false
-        if (email == null){
-            return false;
+        if (!debit(cents)) {
+            throw new InsufficientFundsException("Not enough money");
         }
+    }
 
-        // Check email format and special character usage for if it is valid
-        String emailRegex = "^[A-Za-z0-9]+([._-][A-Za-z0-9]+)*@[A-Za-z0-9]+(-[A-Za-z0-9]+)*(\\.[A-Za-z0-9]+(-[A-Za-z0-9]+)*)+$";
-        if (!email.matches(emailRegex)) {
-            return false;
+    /**
+     * Withdraws money from this account, reporting a shortfall by return value instead of an exception.
+     *
+     * @param amount the amount to withdraw
+     * @return true if the money was withdrawn, false if amount is greater than the current balance
+     * @throws IllegalArgumentException if amount is negative or has more than 2 decimal places
+     * @post If amount is between 0 and balance (inclusive), balance is reduced by amount.
+     */
+    public boolean tryWithdraw(double amount) {
+        if (amount == 0.0) {
+            return true;
         }
 
-        // Find the domain (after the "@")
-        String domain = email.substring(email.indexOf('@') + 1);
-        int lastDot = domain.lastIndexOf('.');
+        if (!isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid withdraw amount.");
+        }
 
-        // Find TLD
-        if (lastDot == -1 || lastDot == domain.length() - 1){
-            return false; // No TLD
+        return debit(toCents(amount));
+    }
+
+    /**
+     * Takes cents out of the balance unless that would make it negative
+     *
+     * @return true if the balance was reduced, false if there was not enough money
+     */
+    private boolean debit(long cents) {
+        if (cents > balanceCents) {
+            return false;
         }
-        String tld = domain.substring(lastDot + 1);
+        balanceCents -= cents;
+        return true;
+    }
+
 
-        // Check if the TLD is at least 2 characters and contains no illegal characters
-        return tld.matches("[A-Za-z]{2,}");
+    /**
+     * Checks if the email has a valid format
+     *
+     * @param email the address to check
+     * @return true if email is valid, false otherwise
+     */
+    public static boolean isEmailValid(String email){
+        return EmailValidator.isValid(email);
     }
 
     /**
      * Deposits money into this account.
      *
      * @param amount the amount of money to deposit
-     * @throws IllegalArgumentException if amount is invalid being negative or more than 2 decimal places
+     * @throws IllegalArgumentException if amount is invalid being negative or more than 2 decimal places,
+     *         or the balance would go over MAX_BALANCE_CENTS
      * @post if amount is valid and greater than 0, balance increases by that amount
      */
     public void deposit(double amount) {
@@ -119,7 +209,30 @@ public class BankAccount {
             throw new IllegalArgumentException("Invalid deposit amount.");
         }
 
-        balance += amount;
+        depositCents(toCents(amount));
+    }
+
+    /**
+     * Deposits money given in cents into this account.
+     *
+     * @param cents the amount of money to deposit in cents
+     * @throws IllegalArgumentException if cents is negative or the balance would go over MAX_BALANCE_CENTS
+     * @post if cents is greater than 0, balance increases by that amount
+     */
+    public void depositCents(long cents) {
+        if (cents == 0) {
+            return;
+        }
+
+        if (!isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid deposit amount.");
+        }
+
+        if (!hasRoomFor(balanceCents, cents)) {
+            throw new IllegalArgumentException("Balance cannot go over " + MAX_BALANCE_CENTS + " cents.");
+        }
+
+        balanceCents += cents;
     }
 
 
@@ -128,7 +241,8 @@ public class BankAccount {
      *
      * @param toAccount the account that is receiving the money
      * @param amount the amount of money to transfer
-     * @throws IllegalArgumentException if toAccount is null or amount is invalid being negative or more than 2 decimal places
+     * @throws IllegalArgumentException if toAccount is null or amount is invalid being negative or more than 2 decimal places,
+     *         or toAccount would go over MAX_BALANCE_CENTS
      * @throws InsufficientFundsException if amount is greater than the current balance
      * @post if success, this balance decreases by the amount and toAccount balance increases by the same amount.
      */
@@ -145,8 +259,75 @@ public class BankAccount {
             throw new IllegalArgumentException("Invalid transfer amount.");
         }
 
-        this.withdraw(amount);
-        toAccount.deposit(amount);
+        transferCents(toAccount, toCents(amount));
+    }
+
+    /**
+     * Transfers money given in cents from this account to another account
+     *
+     * @param toAccount the account that is receiving the money
+     * @param cents the amount of money to transfer in cents
+     * @throws IllegalArgumentException if toAccount is null or cents is negative or toAccount would go over MAX_BALANCE_CENTS
+     * @throws InsufficientFundsException if cents is greater than the current balance
+     * @post if success, this balance decreases by cents and toAccount balance increases by the same amount.
+     */
+    public void transferCents(BankAccount toAccount, long cents) throws InsufficientFundsException {
+        if (toAccount == null) {
+            throw new IllegalArgumentException("toAccount cannot be null.");
+        }
+
+        if (cents == 0) {
+            return;
+        }
+
+        if (!isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid transfer amount.");
+        }
+
+        checkRoom(toAccount, cents);
+        this.withdrawCents(cents);
+        toAccount.depositCents(cents);
+    }
+
+    /**
+     * Transfers money to another account, reporting a shortfall by return value instead of an exception.
+     *
+     * @param toAccount the account that is receiving the money
+     * @param amount the amount of money to transfer
+     * @return true if the money was transferred, false if amount is greater than the current balance
+     * @throws IllegalArgumentException if toAccount is null or amount is invalid being negative or more than 2 decimal places,
+     *         or toAccount would go over MAX_BALANCE_CENTS
+     * @post if success, this balance decreases by the amount and toAccount balance increases by the same amount.
+     */
+    public boolean tryTransfer(BankAccount toAccount, double amount) {
+        if (toAccount == null) {
+            throw new IllegalArgumentException("toAccount cannot be null.");
+        }
+
+        if (amount == 0.0) {
+            return true;
+        }
+
+        if (!isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid transfer amount.");
+        }
+
+        long cents = toCents(amount);
+        checkRoom(toAccount, cents);
+        if (!debit(cents)) {
+            return false;
+        }
+        toAccount.balanceCents += cents;
+        return true;
+    }
+
+    /**
+     * Makes sure a transfer cannot take toAccount over MAX_BALANCE_CENTS, before any balance changes
+     */
+    private void checkRoom(BankAccount toAccount, long cents) {
+        if (toAccount != this && !hasRoomFor(toAccount.balanceCents, cents)) {
+            throw new IllegalArgumentException("Balance cannot go over " + MAX_BALANCE_CENTS + " cents.");
+        }
     }
 
 
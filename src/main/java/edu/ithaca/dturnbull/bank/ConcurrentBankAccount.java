@@ -0,0 +1,367 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe version of {@link BankAccount} with the same rules and exceptions.
+ * The balance is kept as a whole number of cents and updated with compare-and-set,
+ * so threads never block each other on a single account.
+ * Transfers lock both accounts, always in order of account id, so they are atomic
+ * and transfers in opposite directions between the same accounts cannot deadlock.
+ * Accounts created with a {@link BalanceAggregates} report every balance change to it.
+ */
+public class ConcurrentBankAccount {
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+    private static final VarHandle BALANCE_CENTS;
+
+    static {
+        try {
+            BALANCE_CENTS = MethodHandles.lookup().findVarHandle(ConcurrentBankAccount.class, "balanceCents", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long id;
+    private final String email;
+    // updated with compare-and-set through BALANCE_CENTS, a field rather than an AtomicLong saves an object per account
+    private volatile long balanceCents;
+    private final ReentrantLock transferLock = new ReentrantLock();
+    private final BalanceAggregates aggregates;
+
+    /**
+     * @throws IllegalArgumentException if email is invalid
+     */
+    public ConcurrentBankAccount(String email, double startingBalance) {
+        this(email, startingBalance, null);
+    }
+
+    /**
+     * @param aggregates totals this account is counted in, or null for none
+     * @throws IllegalArgumentException if email is invalid
+     */
+    public ConcurrentBankAccount(String email, double startingBalance, BalanceAggregates aggregates) {
+        if (!BankAccount.isEmailValid(email)) {
+            throw new IllegalArgumentException("Email address: " + email + " is invalid, cannot create account");
+        }
+
+        if (!BankAccount.isAmountValid(startingBalance) && startingBalance != 0.0
+                || BankAccount.toCents(startingBalance) > BankAccount.MAX_BALANCE_CENTS) {
+            throw new IllegalArgumentException("Starting balance is invalid.");
+        }
+
+        this.id = NEXT_ID.getAndIncrement();
+        this.email = email;
+        this.balanceCents = BankAccount.toCents(startingBalance);
+        this.aggregates = aggregates;
+        if (aggregates != null) {
+            aggregates.opened(balanceCents);
+        }
+    }
+
+
+    /**
+     * @return the unique id of this account, which fixes the order accounts are locked in
+     */
+    public long getId(){
+        return id;
+    }
+
+    public double getBalance(){
+        return balanceCents / 100.0;
+    }
+
+    public long getBalanceCents(){
+        return balanceCents;
+    }
+
+    public String getEmail(){
+        return email;
+    }
+
+    /**
+     * Withdraws money from this account.
+     *
+     * @param amount the amount to withdraw
+     * @throws IllegalArgumentException if amount is negative or has more than 2 decimal places
+     * @throws InsufficientFundsException if amount is greater than the current balance
+     * @post If amount is between 0 and balance (inclusive), balance is reduced by amount.
+     */
+    public void withdraw(double amount) throws InsufficientFundsException {
+        if (amount == 0.0) {
+            return;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid withdraw amount.");
+        }
+
+        withdrawCents(BankAccount.toCents(amount));
+    }
+
+    /**
+     * Withdraws money given in cents from this account.
+     *
+     * @param cents the amount to withdraw in cents
+     * @throws IllegalArgumentException if cents is negative
+     * @throws InsufficientFundsException if cents is greater than the current balance
+     * @post If cents is between 0 and balance (inclusive), balance is reduced by cents.
+     */
+    public void withdrawCents(long cents) throws InsufficientFundsException {
+        if (cents == 0) {
+            return;
+        }
+
+        if (!BankAccount.isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid withdraw amount.");
+        }
+
+        if (!debit(cents, true)) {
+            throw new InsufficientFundsException("Not enough money");
+        }
+    }
+
+    /**
+     * Withdraws money from this account, reporting a shortfall by return value instead of an exception.
+     *
+     * @param amount the amount to withdraw
+     * @return true if the money was withdrawn, false if amount is greater than the current balance
+     * @throws IllegalArgumentException if amount is negative or has more than 2 decimal places
+     * @post If amount is between 0 and balance (inclusive), balance is reduced by amount.
+     */
+    public boolean tryWithdraw(double amount) {
+        if (amount == 0.0) {
+            return true;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid withdraw amount.");
+        }
+
+        return debit(BankAccount.toCents(amount), true);
+    }
+
+    /**
+     * Deposits money into this account.
+     *
+     * @param amount the amount of money to deposit
+     * @throws IllegalArgumentException if amount is invalid being negative or more than 2 decimal places,
+     *         or the balance would go over MAX_BALANCE_CENTS
+     * @post if amount is valid and greater than 0, balance increases by that amount
+     */
+    public void deposit(double amount) {
+        if (amount == 0.0) {
+            return;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid deposit amount.");
+        }
+
+        depositCents(BankAccount.toCents(amount));
+    }
+
+    /**
+     * Deposits money given in cents into this account.
+     *
+     * @param cents the amount of money to deposit in cents
+     * @throws IllegalArgumentException if cents is negative or the balance would go over MAX_BALANCE_CENTS
+     * @post if cents is greater than 0, balance increases by that amount
+     */
+    public void depositCents(long cents) {
+        if (cents == 0) {
+            return;
+        }
+
+        if (!BankAccount.isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid deposit amount.");
+        }
+
+        if (!credit(cents, true)) {
+            throw new IllegalArgumentException("Balance cannot go over " + BankAccount.MAX_BALANCE_CENTS + " cents.");
+        }
+    }
+
+    /**
+     * Transfers money from this account to another account
+     *
+     * @param toAccount the account that is receiving the money
+     * @param amount the amount of money to transfer
+     * @throws IllegalArgumentException if toAccount is null or amount is invalid being negative or more than 2 decimal places,
+     *         or toAccount would go over MAX_BALANCE_CENTS
+     * @throws InsufficientFundsException if amount is greater than the current balance
+     * @post if success, this balance decreases by the amount and toAccount balance increases by the same amount.
+     */
+    public void transfer(ConcurrentBankAccount toAccount, double amount) throws InsufficientFundsException {
+        if (toAccount == null) {
+            throw new IllegalArgumentException("toAccount cannot be null.");
+        }
+
+        if (amount == 0.0) {
+            return;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid transfer amount.");
+        }
+
+        transferCents(toAccount, BankAccount.toCents(amount));
+    }
+
+    /**
+     * Transfers money given in cents from this account to another account
+     *
+     * @param toAccount the account that is receiving the money
+     * @param cents the amount of money to transfer in cents
+     * @throws IllegalArgumentException if toAccount is null or cents is negative or toAccount would go over MAX_BALANCE_CENTS
+     * @throws InsufficientFundsException if cents is greater than the current balance
+     * @post if success, this balance decreases by cents and toAccount balance increases by the same amount.
+     */
+    public void transferCents(ConcurrentBankAccount toAccount, long cents) throws InsufficientFundsException {
+        if (toAccount == null) {
+            throw new IllegalArgumentException("toAccount cannot be null.");
+        }
+
+        if (cents == 0) {
+            return;
+        }
+
+        if (!BankAccount.isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid transfer amount.");
+        }
+
+        if (!move(toAccount, cents)) {
+            throw new InsufficientFundsException("Not enough money");
+        }
+    }
+
+    /**
+     * Transfers money to another account, reporting a shortfall by return value instead of an exception.
+     *
+     * @param toAccount the account that is receiving the money
+     * @param amount the amount of money to transfer
+     * @return true if the money was transferred, false if amount is greater than the current balance
+     * @throws IllegalArgumentException if toAccount is null or amount is invalid being negative or more than 2 decimal places,
+     *         or toAccount would go over MAX_BALANCE_CENTS
+     * @post if success, this balance decreases by the amount and toAccount balance increases by the same amount.
+     */
+    public boolean tryTransfer(ConcurrentBankAccount toAccount, double amount) {
+        if (toAccount == null) {
+            throw new IllegalArgumentException("toAccount cannot be null.");
+        }
+
+        if (amount == 0.0) {
+            return true;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid transfer amount.");
+        }
+
+        return move(toAccount, BankAccount.toCents(amount));
+    }
+
+    /**
+     * Atomically moves already validated cents to another account while holding both transfer locks
+     *
+     * @return true if the money moved, false if there was not enough money
+     * @throws IllegalArgumentException if toAccount would go over MAX_BALANCE_CENTS, in which case no balance changed
+     */
+    boolean move(ConcurrentBankAccount toAccount, long cents) {
+        ReentrantLock first = (id <= toAccount.id ? this : toAccount).transferLock;
+        ReentrantLock second = (id <= toAccount.id ? toAccount : this).transferLock;
+        first.lock();
+        second.lock();
+        try {
+            if (toAccount != this && !BankAccount.hasRoomFor(toAccount.balanceCents, cents)) {
+                throw new IllegalArgumentException("Balance cannot go over " + BankAccount.MAX_BALANCE_CENTS + " cents.");
+            }
+            boolean countTotal = aggregates != toAccount.aggregates; // within one aggregates the total does not move
+            if (!debit(cents, countTotal)) {
+                return false;
+            }
+            if (!toAccount.credit(cents, countTotal)) {
+                // a deposit that does not lock took the room checked above, so the money goes back;
+                // both amounts are at most MAX_BALANCE_CENTS, so the sum cannot wrap
+                refund(cents, countTotal);
+                throw new IllegalArgumentException("Balance cannot go over " + BankAccount.MAX_BALANCE_CENTS + " cents.");
+            }
+            return true;
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+    }
+
+    /**
+     * Reads the combined balance of two accounts without seeing a transfer between them half done
+     *
+     * @return the sum of both balances in cents
+     */
+    public static long combinedBalanceCents(ConcurrentBankAccount a, ConcurrentBankAccount b) {
+        ReentrantLock first = (a.id <= b.id ? a : b).transferLock;
+        ReentrantLock second = (a.id <= b.id ? b : a).transferLock;
+        first.lock();
+        second.lock();
+        try {
+            return a.balanceCents + b.balanceCents;
+        } finally {
+            second.unlock();
+            first.unlock();
+        }
+    }
+
+    /**
+     * Takes cents out of the balance unless that would make it negative
+     *
+     * @param countTotal whether the aggregates total should change, see {@link BalanceAggregates#changed}
+     * @return true if the balance was reduced, false if there was not enough money
+     */
+    private boolean debit(long cents, boolean countTotal) {
+        long current;
+        do {
+            current = balanceCents;
+            if (cents > current) {
+                return false;
+            }
+        } while (!BALANCE_CENTS.compareAndSet(this, current, current - cents));
+        if (aggregates != null) {
+            aggregates.changed(current, current - cents, countTotal);
+        }
+        return true;
+    }
+
+    /**
+     * Adds cents to the balance unless that would take it over MAX_BALANCE_CENTS
+     *
+     * @param countTotal whether the aggregates total should change, see {@link BalanceAggregates#changed}
+     * @return true if the balance was increased, false if there was no room
+     */
+    private boolean credit(long cents, boolean countTotal) {
+        long current;
+        do {
+            current = balanceCents;
+            if (!BankAccount.hasRoomFor(current, cents)) {
+                return false;
+            }
+        } while (!BALANCE_CENTS.compareAndSet(this, current, current + cents));
+        if (aggregates != null) {
+            aggregates.changed(current, current + cents, countTotal);
+        }
+        return true;
+    }
+
+    /**
+     * Gives back cents taken by debit, even if that goes over MAX_BALANCE_CENTS
+     */
+    private void refund(long cents, boolean countTotal) {
+        long after = (long) BALANCE_CENTS.getAndAdd(this, cents) + cents;
+        if (aggregates != null) {
+            aggregates.changed(after - cents, after, countTotal);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, thread-safe cache of {@link BankAccount#isEmailValid(String)} results.
+ *
+ * A hit is one ConcurrentHashMap lookup plus, if the segment lock is free, telling the eviction
+ * policy about it. Keys are split over segments by hash, each with its own lock and policy, and
+ * each segment holds at most its share of maxEntries. Keys longer than the longest valid email are
+ * never cached, so memory stays bounded however many distinct strings are thrown at it.
+ */
+public class EmailValidationCache {
+
+    /**
+     * Longest email address allowed by RFC 5321
+     */
+    static final int MAX_KEY_LENGTH = 254;
+
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final EvictionPolicy policy;
+        int size;
+
+        Segment(EvictionPolicy policy) {
+            this.policy = policy;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Boolean> results;
+    private final Segment[] segments;
+    private final int segmentCapacity;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries the most emails kept at once
+     * @param policies makes one eviction policy per segment, e.g. EvictionPolicy.Lru::new
+     * @throws IllegalArgumentException if maxEntries is less than 1
+     */
+    public EmailValidationCache(int maxEntries, Supplier<? extends EvictionPolicy> policies) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1.");
+        }
+        int segmentCount = Integer.highestOneBit(Math.min(16, maxEntries));
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(policies.get());
+        }
+        segmentCapacity = maxEntries / segmentCount;
+        results = new ConcurrentHashMap<>(segmentCapacity * segmentCount);
+    }
+
+    /**
+     * Checks if the email has a valid format, see {@link BankAccount#isEmailValid(String)}
+     *
+     * @param email the address to check, may be null
+     * @return true if email is valid, false otherwise
+     */
+    public boolean isValid(String email) {
+        if (email == null || email.length() > MAX_KEY_LENGTH) {
+            misses.increment();
+            return EmailValidator.isValid(email);
+        }
+
+        Segment segment = segments[segmentOf(email)];
+        Boolean cached = results.get(email);
+        if (cached != null) {
+            hits.increment();
+            // Losing a hit under contention only makes the policy slightly less accurate
+            if (segment.lock.tryLock()) {
+                try {
+                    segment.policy.recordHit(email);
+                } finally {
+                    segment.lock.unlock();
+                }
+            }
+            return cached;
+        }
+
+        misses.increment();
+        boolean valid = EmailValidator.isValid(email);
+        segment.lock.lock();
+        try {
+            if (results.putIfAbsent(email, valid) == null) {
+                segment.policy.recordInsert(email);
+                if (++segment.size > segmentCapacity) {
+                    results.remove(segment.policy.evict());
+                    segment.size--;
+                    evictions.increment();
+                }
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        return valid;
+    }
+
+    /**
+     * @return how many emails are cached
+     */
+    public int size() {
+        return results.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return how many lookups had to run the validator, including ones that were never cached
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private int segmentOf(String email) {
+        int hash = email.hashCode();
+        return (hash ^ (hash >>> 16)) & (segments.length - 1);
+    }
+}
@@ -0,0 +1,91 @@
+package edu.ithaca.dturnbull.bank;
+
+/**
+ * Single-pass email format checker used by {@link BankAccount#isEmailValid(String)}.
+ *
+ * Accepts exactly the same addresses as the original pair of regular expressions:
+ * a local part of letter/digit runs separated by a single '.', '_' or '-', an '@',
+ * and a domain of at least two labels (letter/digit runs separated by a single '-')
+ * joined by '.', where the last label is two or more letters.
+ * Nothing is allocated while scanning.
+ */
+final class EmailValidator {
+
+    private EmailValidator() {
+    }
+
+    /**
+     * Checks if the email has a valid format
+     *
+     * @param email the address to check, may be null; any CharSequence so raw ASCII can be checked without a String
+     * @return true if email is valid, false otherwise
+     */
+    static boolean isValid(CharSequence email) {
+        if (email == null) {
+            return false;
+        }
+
+        int length = email.length();
+        int i = 0;
+
+        // Local part: must start and end with a letter or digit, separators never doubled
+        boolean afterAlphanumeric = false;
+        for (; i < length; i++) {
+            char c = email.charAt(i);
+            if (isLetter(c) || isDigit(c)) {
+                afterAlphanumeric = true;
+            } else if (c == '.' || c == '_' || c == '-') {
+                if (!afterAlphanumeric) {
+                    return false;
+                }
+                afterAlphanumeric = false;
+            } else if (c == '@') {
+                break;
+            } else {
+                return false;
+            }
+        }
+        if (i == length || !afterAlphanumeric) {
+            return false; // no '@' or local part is empty or ends with a separator
+        }
+
+        // Domain: labels joined by '.', the last label (TLD) letters only
+        afterAlphanumeric = false;
+        boolean hasDot = false;
+        boolean tldLettersOnly = true;
+        int tldStart = i + 1;
+        for (i = i + 1; i < length; i++) {
+            char c = email.charAt(i);
+            if (isLetter(c)) {
+                afterAlphanumeric = true;
+            } else if (isDigit(c)) {
+                afterAlphanumeric = true;
+                tldLettersOnly = false;
+            } else if (c == '-' || c == '.') {
+                if (!afterAlphanumeric) {
+                    return false;
+                }
+                afterAlphanumeric = false;
+                if (c == '.') {
+                    hasDot = true;
+                    tldLettersOnly = true;
+                    tldStart = i + 1;
+                } else {
+                    tldLettersOnly = false;
+                }
+            } else {
+                return false;
+            }
+        }
+
+        return afterAlphanumeric && hasDot && tldLettersOnly && length - tldStart >= 2;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
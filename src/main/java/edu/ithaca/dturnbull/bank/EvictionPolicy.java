@@ -0,0 +1,79 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Decides which key a bounded cache drops when it is full.
+ *
+ * A policy only tracks keys; the cache keeps the values. Each instance is used by one cache
+ * segment and is only called while that segment's lock is held, so it need not be thread-safe.
+ */
+public interface EvictionPolicy {
+
+    /**
+     * Called when key is added to the cache
+     */
+    void recordInsert(String key);
+
+    /**
+     * Called when key is found in the cache. May be skipped when the segment is busy.
+     */
+    void recordHit(String key);
+
+    /**
+     * Stops tracking one key so the cache can remove it
+     *
+     * @return the key to remove, one of the keys inserted and not yet evicted
+     */
+    String evict();
+
+    /**
+     * Evicts the key that was used least recently
+     */
+    final class Lru implements EvictionPolicy {
+
+        private final LinkedHashMap<String, Boolean> order = new LinkedHashMap<>(16, 0.75f, true);
+
+        @Override
+        public void recordInsert(String key) {
+            order.put(key, Boolean.TRUE);
+        }
+
+        @Override
+        public void recordHit(String key) {
+            order.get(key);
+        }
+
+        @Override
+        public String evict() {
+            Iterator<String> oldest = order.keySet().iterator();
+            String key = oldest.next();
+            oldest.remove();
+            return key;
+        }
+    }
+
+    /**
+     * Evicts the key that was inserted first, hits change nothing
+     */
+    final class Fifo implements EvictionPolicy {
+
+        private final ArrayDeque<String> order = new ArrayDeque<>();
+
+        @Override
+        public void recordInsert(String key) {
+            order.addLast(key);
+        }
+
+        @Override
+        public void recordHit(String key) {
+        }
+
+        @Override
+        public String evict() {
+            return order.removeFirst();
+        }
+    }
+}
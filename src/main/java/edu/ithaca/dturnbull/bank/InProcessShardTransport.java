@@ -0,0 +1,76 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a cluster inside one JVM: every shard is an AccountShard with its own thread,
+ * standing in for a node, and sending a command queues it on that thread.
+ */
+public class InProcessShardTransport implements ShardTransport {
+
+    private final AccountShard[] shards;
+    private final ExecutorService[] nodes;
+
+    /**
+     * @param shardCount how many shards to start
+     * @throws IllegalArgumentException if shardCount is less than 1
+     */
+    public InProcessShardTransport(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be at least 1.");
+        }
+        shards = new AccountShard[shardCount];
+        nodes = new ExecutorService[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new AccountShard();
+            int shard = i;
+            nodes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "account-shard-" + shard);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public CompletableFuture<Long> send(int shard, ShardCommand command) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        AccountShard target = shards[shard];
+        try {
+            nodes[shard].execute(() -> {
+                try {
+                    future.complete(target.execute(command));
+                } catch (InsufficientFundsException | RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the transport is closed, so the command never reaches the shard
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService node : nodes) {
+            node.shutdown();
+        }
+        try {
+            for (ExecutorService node : nodes) {
+                node.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
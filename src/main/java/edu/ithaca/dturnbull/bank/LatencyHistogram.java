@@ -0,0 +1,158 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds, in the style of HdrHistogram.
+ *
+ * Each power of two is split into 32 linear sub-buckets, so any recorded value is off by at most
+ * about 3%. Values from about 18 minutes up share the top bucket. Counts are striped over several
+ * AtomicLongArrays picked by thread id, so recording allocates nothing and threads rarely share a
+ * cache line.
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int MAX_MAGNITUDE = 40;
+    static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    public LatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+        stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Counts one value
+     *
+     * @param nanos the latency to record, negative values count as 0
+     */
+    public void record(long nanos) {
+        stripes[(int) Thread.currentThread().threadId() & stripeMask].getAndIncrement(bucketOf(nanos));
+    }
+
+    /**
+     * @param reset whether to zero the counts copied into the snapshot
+     * @return the counts recorded so far, or since the last reset
+     */
+    public Snapshot snapshot(boolean reset) {
+        long[] counts = new long[BUCKETS];
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += reset ? stripe.getAndSet(i, 0) : stripe.get(i);
+            }
+        }
+        return new Snapshot(counts);
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(nanos);
+        if (magnitude >= MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (nanos >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the smallest value that falls into bucket
+     */
+    static long lowestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (magnitude - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @return the largest value that falls into bucket
+     */
+    static long highestValueOf(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueOf(bucket + 1) - 1;
+    }
+
+    /**
+     * Counts copied out of a LatencyHistogram at one point
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long totalCount;
+
+        Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the highest value in the bucket holding that percentile, 0 if nothing was recorded
+         * @throws IllegalArgumentException if percentile is not between 0 and 100
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (!(percentile >= 0.0 && percentile <= 100.0)) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+            }
+            if (totalCount == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return highestValueOf(i);
+                }
+            }
+            return highestValueOf(BUCKETS - 1);
+        }
+
+        /**
+         * @return the highest value in the highest bucket recorded, 0 if nothing was recorded
+         */
+        public long getMax() {
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                if (counts[i] != 0) {
+                    return highestValueOf(i);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @return the mean of recorded values, taking each as the middle of its bucket
+         */
+        public double getMean() {
+            if (totalCount == 0) {
+                return 0.0;
+            }
+            double sum = 0.0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] != 0) {
+                    sum += counts[i] * ((lowestValueOf(i) + (double) highestValueOf(i)) / 2.0);
+                }
+            }
+            return sum / totalCount;
+        }
+    }
+}
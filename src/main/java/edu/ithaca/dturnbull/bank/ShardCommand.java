@@ -0,0 +1,63 @@
+package edu.ithaca.dturnbull.bank;
+
+/**
+ * One request to an AccountShard. Commands are plain data, so a transport can send them
+ * to a shard in another process as well as hand them to one in this JVM.
+ */
+public final class ShardCommand {
+
+    public static final byte OPEN = 1;
+    public static final byte DEPOSIT = 2;
+    public static final byte WITHDRAW = 3;
+    public static final byte BALANCE = 4;
+    /** Transfer between two accounts of the same shard */
+    public static final byte TRANSFER = 5;
+    /** Phase one of a cross-shard transfer: hold the money back from the sender */
+    public static final byte PREPARE_DEBIT = 6;
+    /** Phase one of a cross-shard transfer: check the receiver exists and remember the credit */
+    public static final byte PREPARE_CREDIT = 7;
+    /** Phase two: drop a debit hold, or apply a prepared credit */
+    public static final byte COMMIT = 8;
+    /** Phase two: give a held debit back, or forget a prepared credit */
+    public static final byte ABORT = 9;
+
+    private final byte type;
+    private final String email;
+    private final String toEmail;
+    private final long cents;
+    private final long transactionId;
+
+    public ShardCommand(byte type, String email, String toEmail, long cents, long transactionId) {
+        this.type = type;
+        this.email = email;
+        this.toEmail = toEmail;
+        this.cents = cents;
+        this.transactionId = transactionId;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * @return the receiving account of a TRANSFER, null for other commands
+     */
+    public String getToEmail() {
+        return toEmail;
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    /**
+     * @return the cross-shard transfer this command belongs to, 0 for other commands
+     */
+    public long getTransactionId() {
+        return transactionId;
+    }
+}
@@ -0,0 +1,32 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Carries ShardCommands to the shards of a {@link ShardedAccounts} cluster.
+ *
+ * Each shard must run the commands it receives one at a time, see {@link AccountShard}.
+ * Commands sent to one shard from one thread must run in the order they were sent.
+ */
+public interface ShardTransport extends AutoCloseable {
+
+    /**
+     * @return how many shards this transport reaches, numbered from 0
+     */
+    int shardCount();
+
+    /**
+     * Sends a command to a shard
+     *
+     * @return a future with what {@link AccountShard#execute(ShardCommand)} returned, or the exception it threw,
+     *         or failed with RejectedExecutionException if the transport is closed
+     */
+    CompletableFuture<Long> send(int shard, ShardCommand command);
+
+    /**
+     * Stops the transport once the commands already sent have run. If interrupted while waiting,
+     * returns early with the interrupt flag set; the commands already sent still run.
+     */
+    @Override
+    void close();
+}
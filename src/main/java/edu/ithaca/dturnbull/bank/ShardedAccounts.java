@@ -0,0 +1,146 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accounts partitioned over shards by a hash of their lower case email.
+ *
+ * Deposits, withdrawals and transfers between accounts of one shard go to that shard as a single
+ * command. A transfer between shards runs in two phases: the sending shard holds the money back
+ * while the receiving shard checks the account exists, then both commit, or both abort and the
+ * hold is given back. Every operation returns a future that fails with the exception the shard
+ * threw. Shards are reached through a pluggable ShardTransport.
+ *
+ * Several coordinators may share the shards, so a transaction id is the coordinator id in the high
+ * 32 bits and a per-coordinator counter in the low 32 bits.
+ */
+public class ShardedAccounts implements AutoCloseable {
+
+    private final ShardTransport transport;
+    private final long coordinatorBits;
+    private final AtomicInteger nextTransaction = new AtomicInteger();
+
+    /**
+     * Coordinates through transport with a random coordinator id
+     */
+    public ShardedAccounts(ShardTransport transport) {
+        this(transport, ThreadLocalRandom.current().nextInt());
+    }
+
+    /**
+     * @param coordinatorId must differ from that of every other coordinator using the same shards
+     */
+    public ShardedAccounts(ShardTransport transport, int coordinatorId) {
+        this.transport = transport;
+        this.coordinatorBits = (long) coordinatorId << 32;
+    }
+
+    /**
+     * @return the shard that owns the account with this email
+     */
+    public int shardOf(String email) {
+        if (email == null) {
+            return 0;
+        }
+        int hash = AccountRegistry.normalize(email).hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), transport.shardCount());
+    }
+
+    /**
+     * Creates an account on its shard
+     *
+     * @return a future failed with IllegalArgumentException if email is invalid, taken, or startingBalance is invalid
+     */
+    public CompletableFuture<Void> open(String email, double startingBalance) {
+        if (!BankAccount.isAmountValid(startingBalance) && startingBalance != 0.0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Starting balance is invalid."));
+        }
+        return run(shardOf(email), new ShardCommand(ShardCommand.OPEN, email, null, BankAccount.toCents(startingBalance), 0));
+    }
+
+    /**
+     * Deposits into an account, see {@link BankAccount#deposit(double)}
+     */
+    public CompletableFuture<Void> deposit(String email, double amount) {
+        if (amount != 0.0 && !BankAccount.isAmountValid(amount)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid deposit amount."));
+        }
+        return run(shardOf(email), new ShardCommand(ShardCommand.DEPOSIT, email, null, BankAccount.toCents(amount), 0));
+    }
+
+    /**
+     * Withdraws from an account, see {@link BankAccount#withdraw(double)}
+     */
+    public CompletableFuture<Void> withdraw(String email, double amount) {
+        if (amount != 0.0 && !BankAccount.isAmountValid(amount)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid withdraw amount."));
+        }
+        return run(shardOf(email), new ShardCommand(ShardCommand.WITHDRAW, email, null, BankAccount.toCents(amount), 0));
+    }
+
+    /**
+     * @return a future with the balance of an account
+     */
+    public CompletableFuture<Double> getBalance(String email) {
+        return transport.send(shardOf(email), new ShardCommand(ShardCommand.BALANCE, email, null, 0, 0))
+                .thenApply(cents -> cents / 100.0);
+    }
+
+    /**
+     * Transfers between two accounts, see {@link BankAccount#transfer(BankAccount, double)}
+     *
+     * @return a future completed once the money has moved, or failed with InsufficientFundsException or
+     *         IllegalArgumentException, in which case neither balance changed
+     */
+    public CompletableFuture<Void> transfer(String fromEmail, String toEmail, double amount) {
+        if (amount == 0.0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!BankAccount.isAmountValid(amount)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid transfer amount."));
+        }
+        long cents = BankAccount.toCents(amount);
+        int fromShard = shardOf(fromEmail);
+        int toShard = shardOf(toEmail);
+        if (fromShard == toShard) {
+            return run(fromShard, new ShardCommand(ShardCommand.TRANSFER, fromEmail, toEmail, cents, 0));
+        }
+
+        long transaction = coordinatorBits | Integer.toUnsignedLong(nextTransaction.incrementAndGet());
+        CompletableFuture<Throwable> debit = failureOf(transport.send(fromShard,
+                new ShardCommand(ShardCommand.PREPARE_DEBIT, fromEmail, null, cents, transaction)));
+        CompletableFuture<Throwable> credit = failureOf(transport.send(toShard,
+                new ShardCommand(ShardCommand.PREPARE_CREDIT, toEmail, null, cents, transaction)));
+        return debit.thenCombine(credit, (debitFailure, creditFailure) -> debitFailure != null ? debitFailure : creditFailure)
+                .thenCompose(failure -> {
+                    byte decision = failure == null ? ShardCommand.COMMIT : ShardCommand.ABORT;
+                    ShardCommand command = new ShardCommand(decision, null, null, 0, transaction);
+                    return CompletableFuture.allOf(transport.send(fromShard, command), transport.send(toShard, command))
+                            .thenRun(() -> {
+                                if (failure != null) {
+                                    throw new CompletionException(failure);
+                                }
+                            });
+                });
+    }
+
+    /**
+     * Stops the transport. Wait for outstanding transfers first: a transfer whose first phase is
+     * still running cannot send its second phase once the transport is closed.
+     */
+    @Override
+    public void close() {
+        transport.close();
+    }
+
+    private CompletableFuture<Void> run(int shard, ShardCommand command) {
+        return transport.send(shard, command).thenAccept(ignored -> { });
+    }
+
+    private static CompletableFuture<Throwable> failureOf(CompletableFuture<Long> future) {
+        return future.handle((ignored, failure) -> failure);
+    }
+}
@@ -0,0 +1,390 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe version of {@link BankAccount} for read-mostly traffic, with the same rules and exceptions.
+ *
+ * Besides the balance, the account keeps running totals of the money that came in and went out,
+ * transfers included. Writers take a StampedLock. Readers do not lock: they read the fields
+ * under an optimistic stamp and try again if a write happened meanwhile, so a read neither blocks
+ * nor writes to a shared cache line unless it races with a write. Only a read that loses that race
+ * several times in a row takes the read lock, and then waits for the current writer to finish.
+ * Every read sees balance == starting balance + deposited - withdrawn, even mid-write.
+ * Transfers lock both accounts in order of account id, as ConcurrentBankAccount does.
+ */
+public class StampedBankAccount {
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    /**
+     * Optimistic reads tried before a read falls back to the read lock
+     */
+    static final int OPTIMISTIC_ATTEMPTS = 4;
+
+    private final long id;
+    private final String email;
+    private final StampedLock lock = new StampedLock();
+    private long balanceCents;
+    private long depositedCents;
+    private long withdrawnCents;
+
+    /**
+     * @throws IllegalArgumentException if email is invalid
+     */
+    public StampedBankAccount(String email, double startingBalance) {
+        if (!BankAccount.isEmailValid(email)) {
+            throw new IllegalArgumentException("Email address: " + email + " is invalid, cannot create account");
+        }
+
+        if (!BankAccount.isAmountValid(startingBalance) && startingBalance != 0.0
+                || BankAccount.toCents(startingBalance) > BankAccount.MAX_BALANCE_CENTS) {
+            throw new IllegalArgumentException("Starting balance is invalid.");
+        }
+
+        this.id = NEXT_ID.getAndIncrement();
+        this.email = email;
+        this.balanceCents = BankAccount.toCents(startingBalance);
+    }
+
+    public double getBalance(){
+        return getBalanceCents() / 100.0;
+    }
+
+    public long getBalanceCents(){
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            long balance = balanceCents;
+            if (lock.validate(stamp)) {
+                return balance;
+            }
+            Thread.onSpinWait();
+        }
+        long stamp = lock.readLock();
+        try {
+            return balanceCents;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public String getEmail(){
+        return email;
+    }
+
+    /**
+     * Reads the balance and both running totals as of one moment
+     *
+     * @return the balance, total deposited and total withdrawn in cents, consistent with each other
+     */
+    public Totals getTotals() {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            long balance = balanceCents;
+            long deposited = depositedCents;
+            long withdrawn = withdrawnCents;
+            if (lock.validate(stamp)) {
+                return new Totals(balance, deposited, withdrawn);
+            }
+            Thread.onSpinWait();
+        }
+        long stamp = lock.readLock();
+        try {
+            return new Totals(balanceCents, depositedCents, withdrawnCents);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Withdraws money from this account.
+     *
+     * @param amount the amount to withdraw
+     * @throws IllegalArgumentException if amount is negative or has more than 2 decimal places
+     * @throws InsufficientFundsException if amount is greater than the current balance
+     * @post If amount is between 0 and balance (inclusive), balance is reduced by amount.
+     */
+    public void withdraw(double amount) throws InsufficientFundsException {
+        if (amount == 0.0) {
+            return;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid withdraw amount.");
+        }
+
+        withdrawCents(BankAccount.toCents(amount));
+    }
+
+    /**
+     * Withdraws money given in cents from this account.
+     *
+     * @param cents the amount to withdraw in cents
+     * @throws IllegalArgumentException if cents is negative
+     * @throws InsufficientFundsException if cents is greater than the current balance
+     * @post If cents is between 0 and balance (inclusive), balance is reduced by cents.
+     */
+    public void withdrawCents(long cents) throws InsufficientFundsException {
+        if (cents == 0) {
+            return;
+        }
+
+        if (!BankAccount.isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid withdraw amount.");
+        }
+
+        if (!debit(cents)) {
+            throw new InsufficientFundsException("Not enough money");
+        }
+    }
+
+    /**
+     * Withdraws money from this account, reporting a shortfall by return value instead of an exception.
+     *
+     * @param amount the amount to withdraw
+     * @return true if the money was withdrawn, false if amount is greater than the current balance
+     * @throws IllegalArgumentException if amount is negative or has more than 2 decimal places
+     * @post If amount is between 0 and balance (inclusive), balance is reduced by amount.
+     */
+    public boolean tryWithdraw(double amount) {
+        if (amount == 0.0) {
+            return true;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid withdraw amount.");
+        }
+
+        return debit(BankAccount.toCents(amount));
+    }
+
+    /**
+     * Deposits money into this account.
+     *
+     * @param amount the amount of money to deposit
+     * @throws IllegalArgumentException if amount is invalid being negative or more than 2 decimal places,
+     *         or the balance would go over MAX_BALANCE_CENTS
+     * @post if amount is valid and greater than 0, balance increases by that amount
+     */
+    public void deposit(double amount) {
+        if (amount == 0.0) {
+            return;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid deposit amount.");
+        }
+
+        depositCents(BankAccount.toCents(amount));
+    }
+
+    /**
+     * Deposits money given in cents into this account.
+     *
+     * @param cents the amount of money to deposit in cents
+     * @throws IllegalArgumentException if cents is negative or the balance would go over MAX_BALANCE_CENTS
+     * @post if cents is greater than 0, balance increases by that amount
+     */
+    public void depositCents(long cents) {
+        if (cents == 0) {
+            return;
+        }
+
+        if (!BankAccount.isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid deposit amount.");
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            if (!BankAccount.hasRoomFor(balanceCents, cents)) {
+                throw new IllegalArgumentException("Balance cannot go over " + BankAccount.MAX_BALANCE_CENTS + " cents.");
+            }
+            credit(cents);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Transfers money from this account to another account
+     *
+     * @param toAccount the account that is receiving the money
+     * @param amount the amount of money to transfer
+     * @throws IllegalArgumentException if toAccount is null or amount is invalid being negative or more than 2 decimal places,
+     *         or toAccount would go over MAX_BALANCE_CENTS
+     * @throws InsufficientFundsException if amount is greater than the current balance
+     * @post if success, this balance decreases by the amount and toAccount balance increases by the same amount.
+     */
+    public void transfer(StampedBankAccount toAccount, double amount) throws InsufficientFundsException {
+        if (toAccount == null) {
+            throw new IllegalArgumentException("toAccount cannot be null.");
+        }
+
+        if (amount == 0.0) {
+            return;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid transfer amount.");
+        }
+
+        transferCents(toAccount, BankAccount.toCents(amount));
+    }
+
+    /**
+     * Transfers money given in cents from this account to another account
+     *
+     * @param toAccount the account that is receiving the money
+     * @param cents the amount of money to transfer in cents
+     * @throws IllegalArgumentException if toAccount is null or cents is negative or toAccount would go over MAX_BALANCE_CENTS
+     * @throws InsufficientFundsException if cents is greater than the current balance
+     * @post if success, this balance decreases by cents and toAccount balance increases by the same amount.
+     */
+    public void transferCents(StampedBankAccount toAccount, long cents) throws InsufficientFundsException {
+        if (toAccount == null) {
+            throw new IllegalArgumentException("toAccount cannot be null.");
+        }
+
+        if (cents == 0) {
+            return;
+        }
+
+        if (!BankAccount.isCentsValid(cents)) {
+            throw new IllegalArgumentException("Invalid transfer amount.");
+        }
+
+        if (!move(toAccount, cents)) {
+            throw new InsufficientFundsException("Not enough money");
+        }
+    }
+
+    /**
+     * Transfers money to another account, reporting a shortfall by return value instead of an exception.
+     *
+     * @param toAccount the account that is receiving the money
+     * @param amount the amount of money to transfer
+     * @return true if the money was transferred, false if amount is greater than the current balance
+     * @throws IllegalArgumentException if toAccount is null or amount is invalid being negative or more than 2 decimal places,
+     *         or toAccount would go over MAX_BALANCE_CENTS
+     * @post if success, this balance decreases by the amount and toAccount balance increases by the same amount.
+     */
+    public boolean tryTransfer(StampedBankAccount toAccount, double amount) {
+        if (toAccount == null) {
+            throw new IllegalArgumentException("toAccount cannot be null.");
+        }
+
+        if (amount == 0.0) {
+            return true;
+        }
+
+        if (!BankAccount.isAmountValid(amount)) {
+            throw new IllegalArgumentException("Invalid transfer amount.");
+        }
+
+        return move(toAccount, BankAccount.toCents(amount));
+    }
+
+    /**
+     * Balance and running totals of an account, read together
+     */
+    public static final class Totals {
+
+        private final long balanceCents;
+        private final long depositedCents;
+        private final long withdrawnCents;
+
+        Totals(long balanceCents, long depositedCents, long withdrawnCents) {
+            this.balanceCents = balanceCents;
+            this.depositedCents = depositedCents;
+            this.withdrawnCents = withdrawnCents;
+        }
+
+        public long getBalanceCents() {
+            return balanceCents;
+        }
+
+        /**
+         * @return all money that came in after the account was created, transfers included
+         */
+        public long getDepositedCents() {
+            return depositedCents;
+        }
+
+        /**
+         * @return all money that went out, transfers included
+         */
+        public long getWithdrawnCents() {
+            return withdrawnCents;
+        }
+    }
+
+    /**
+     * Atomically moves already validated cents to another account while holding both write locks
+     *
+     * @return true if the money moved, false if there was not enough money
+     * @throws IllegalArgumentException if toAccount would go over MAX_BALANCE_CENTS, in which case no balance changed
+     */
+    private boolean move(StampedBankAccount toAccount, long cents) {
+        if (toAccount == this) {
+            // StampedLock is not reentrant, so the one lock is taken once and the balance stays put
+            long stamp = lock.writeLock();
+            try {
+                if (cents > balanceCents) {
+                    return false;
+                }
+                withdrawnCents += cents;
+                depositedCents += cents;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        StampedLock first = (id <= toAccount.id ? this : toAccount).lock;
+        StampedLock second = (id <= toAccount.id ? toAccount : this).lock;
+        long firstStamp = first.writeLock();
+        long secondStamp = second.writeLock();
+        try {
+            if (!BankAccount.hasRoomFor(toAccount.balanceCents, cents)) {
+                throw new IllegalArgumentException("Balance cannot go over " + BankAccount.MAX_BALANCE_CENTS + " cents.");
+            }
+            if (cents > balanceCents) {
+                return false;
+            }
+            balanceCents -= cents;
+            withdrawnCents += cents;
+            toAccount.credit(cents);
+            return true;
+        } finally {
+            second.unlockWrite(secondStamp);
+            first.unlockWrite(firstStamp);
+        }
+    }
+
+    /**
+     * Takes cents out of the balance unless that would make it negative
+     *
+     * @return true if the balance was reduced, false if there was not enough money
+     */
+    private boolean debit(long cents) {
+        long stamp = lock.writeLock();
+        try {
+            if (cents > balanceCents) {
+                return false;
+            }
+            balanceCents -= cents;
+            withdrawnCents += cents;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds cents to the balance, the caller holds the write lock
+     */
+    private void credit(long cents) {
+        balanceCents += cents;
+        depositedCents += cents;
+    }
+}
@@ -0,0 +1,122 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.Arrays;
+
+/**
+ * The most recent transactions of each account, addressed by the int ids of an AccountStore.
+ *
+ * Every account owns a fixed ring of entriesPerAccount slots in three shared primitive arrays
+ * (timestamp, signed cents, counterparty id), so an account costs 20 bytes per slot plus 8
+ * for its write counter, however many transactions it makes; older entries are overwritten.
+ * That is exact up to the expected account count given to the constructor. Past it the arrays
+ * double, as AccountStore's do, so up to half the slots may sit unused. Reading copies into arrays the caller provides, so it allocates nothing.
+ * Like AccountStore, this class is not thread-safe.
+ */
+public class TransactionHistory {
+
+    /**
+     * Counterparty id of deposits and withdrawals
+     */
+    public static final int NO_COUNTERPARTY = -1;
+
+    private final int entriesPerAccount;
+    private long[] timestamps;
+    private long[] cents;
+    private int[] counterparties;
+    private long[] written;
+
+    /**
+     * @param entriesPerAccount how many recent transactions to keep for each account
+     * @throws IllegalArgumentException if entriesPerAccount is less than 1
+     */
+    public TransactionHistory(int entriesPerAccount) {
+        this(entriesPerAccount, 0);
+    }
+
+    /**
+     * @param entriesPerAccount how many recent transactions to keep for each account
+     * @param expectedAccounts how many accounts to make room for up front
+     * @throws IllegalArgumentException if entriesPerAccount is less than 1, expectedAccounts is negative,
+     *         or the slots for expectedAccounts are more than an array can hold
+     */
+    public TransactionHistory(int entriesPerAccount, int expectedAccounts) {
+        if (entriesPerAccount < 1) {
+            throw new IllegalArgumentException("entriesPerAccount must be at least 1.");
+        }
+        if (expectedAccounts < 0 || (long) expectedAccounts * entriesPerAccount > AccountStore.MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException("expectedAccounts cannot be negative or need more than " + AccountStore.MAX_ARRAY_LENGTH + " slots.");
+        }
+        this.entriesPerAccount = entriesPerAccount;
+        timestamps = new long[expectedAccounts * entriesPerAccount];
+        cents = new long[expectedAccounts * entriesPerAccount];
+        counterparties = new int[expectedAccounts * entriesPerAccount];
+        written = new long[expectedAccounts];
+    }
+
+    /**
+     * Adds a transaction to an account's history, overwriting its oldest entry when full
+     *
+     * @param accountId the account the transaction belongs to
+     * @param timestamp when it happened, e.g. System.currentTimeMillis()
+     * @param signedCents money in as positive cents, money out as negative
+     * @param counterpartyId the other account of a transfer, NO_COUNTERPARTY otherwise
+     */
+    public void record(int accountId, long timestamp, long signedCents, int counterpartyId) {
+        if (accountId < 0) {
+            throw new IllegalArgumentException("No account with id: " + accountId);
+        }
+        if (accountId >= written.length) {
+            grow(accountId);
+        }
+        int slot = accountId * entriesPerAccount + (int) (written[accountId] % entriesPerAccount);
+        timestamps[slot] = timestamp;
+        cents[slot] = signedCents;
+        counterparties[slot] = counterpartyId;
+        written[accountId]++;
+    }
+
+    /**
+     * @return how many entries an account has, at most entriesPerAccount
+     */
+    public int size(int accountId) {
+        if (accountId < 0 || accountId >= written.length) {
+            return 0;
+        }
+        return (int) Math.min(written[accountId], entriesPerAccount);
+    }
+
+    /**
+     * Copies an account's most recent entries, newest first, into the given arrays
+     *
+     * @param timestamps receives the timestamps
+     * @param cents receives the signed amounts in cents
+     * @param counterparties receives the counterparty ids
+     * @return how many entries were copied: the shortest array length or size(accountId), whichever is less
+     */
+    public int copyRecent(int accountId, long[] timestamps, long[] cents, int[] counterparties) {
+        int count = Math.min(size(accountId), Math.min(timestamps.length, Math.min(cents.length, counterparties.length)));
+        int base = accountId * entriesPerAccount;
+        long newest = count == 0 ? 0 : written[accountId] - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = base + (int) ((newest - i) % entriesPerAccount);
+            timestamps[i] = this.timestamps[slot];
+            cents[i] = this.cents[slot];
+            counterparties[i] = this.counterparties[slot];
+        }
+        return count;
+    }
+
+    private void grow(int accountId) {
+        int accounts = Math.max(accountId + 1, written.length * 2);
+        if ((long) accounts * entriesPerAccount > AccountStore.MAX_ARRAY_LENGTH) {
+            accounts = accountId + 1;
+            if ((long) accounts * entriesPerAccount > AccountStore.MAX_ARRAY_LENGTH) {
+                throw new IllegalStateException("History storage is full");
+            }
+        }
+        timestamps = Arrays.copyOf(timestamps, accounts * entriesPerAccount);
+        cents = Arrays.copyOf(cents, accounts * entriesPerAccount);
+        counterparties = Arrays.copyOf(counterparties, accounts * entriesPerAccount);
+        written = Arrays.copyOf(written, accounts);
+    }
+}
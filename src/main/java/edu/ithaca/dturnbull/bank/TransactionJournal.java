@@ -0,0 +1,235 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only log of successful account operations, written through a memory-mapped file.
+ *
+ * Every record has a fixed 24 byte header: type, payload length, account id, counterparty id
+ * and amount in cents. Only account creation has a payload, the ASCII email, padded to 8 bytes.
+ * The file is mapped in regions; a record never crosses a region, and a NEXT_REGION marker
+ * tells readers to skip the unused tail. A zero type byte marks the end of the log.
+ *
+ * Records are group committed: the mapped pages are forced to disk after every syncEvery
+ * records, or only when sync() is called or a region fills up when syncEvery is 0. Not thread-safe.
+ */
+public final class TransactionJournal implements Closeable {
+
+    static final byte CREATE = 1;
+    static final byte DEPOSIT = 2;
+    static final byte WITHDRAW = 3;
+    static final byte TRANSFER = 4;
+    static final byte NEXT_REGION = 5;
+
+    static final int HEADER_SIZE = 24;
+    static final int DEFAULT_REGION_SIZE = 64 << 20;
+
+    /**
+     * Receives the records of a journal in order
+     */
+    interface RecordVisitor {
+        /**
+         * @param email the account email for CREATE records, null otherwise
+         */
+        void visit(byte type, int accountId, int counterpartyId, long cents, String email);
+    }
+
+    private final FileChannel channel;
+    private final int syncEvery;
+    private final int regionSize;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long position;
+    private long syncedPosition;
+    private int unsynced;
+
+    /**
+     * Opens a journal, creating the file if needed, and positions it after the last record
+     *
+     * @param file the journal file
+     * @param syncEvery force the file to disk after this many records, 0 to force only on sync() and when a region fills up
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public TransactionJournal(Path file, int syncEvery) throws IOException {
+        this(file, syncEvery, DEFAULT_REGION_SIZE);
+    }
+
+    TransactionJournal(Path file, int syncEvery, int regionSize) throws IOException {
+        if (syncEvery < 0) {
+            throw new IllegalArgumentException("syncEvery cannot be negative.");
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.syncEvery = syncEvery;
+        this.regionSize = regionSize;
+
+        position = forEachRecord(0, Long.MAX_VALUE, null);
+        syncedPosition = position;
+        regionStart = position - position % regionSize;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+    }
+
+    public void appendCreate(String email, long startingCents) {
+        append(CREATE, 0, 0, startingCents, email);
+    }
+
+    public void appendDeposit(int accountId, long cents) {
+        append(DEPOSIT, accountId, 0, cents, null);
+    }
+
+    public void appendWithdraw(int accountId, long cents) {
+        append(WITHDRAW, accountId, 0, cents, null);
+    }
+
+    public void appendTransfer(int fromId, int toId, long cents) {
+        append(TRANSFER, fromId, toId, cents, null);
+    }
+
+    /**
+     * @return the byte offset just past the last record, where the next record will go
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Forces every record appended so far to disk
+     */
+    public void sync() {
+        int from = (int) (syncedPosition - regionStart);
+        int length = (int) (position - syncedPosition);
+        if (length > 0) {
+            region.force(from, length);
+        }
+        syncedPosition = position;
+        unsynced = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    /**
+     * Applies every record from a position onwards to a store, recreating accounts and balances
+     *
+     * @param fromPosition where to start, 0 for the whole journal
+     * @param store the store to apply the records to, which must not write to this journal
+     */
+    public void replay(long fromPosition, AccountStore store) {
+        try {
+            forEachRecord(fromPosition, position, (type, accountId, counterpartyId, cents, email) -> {
+                switch (type) {
+                    case CREATE -> store.append(email, cents);
+                    case DEPOSIT -> store.adjust(accountId, cents);
+                    case WITHDRAW -> store.adjust(accountId, -cents);
+                    case TRANSFER -> {
+                        store.adjust(accountId, -cents);
+                        store.adjust(counterpartyId, cents);
+                    }
+                    default -> throw new IllegalStateException("Unknown journal record type " + type);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads records in order from a position until the end of the log or an end position
+     *
+     * @param visitor receives each record, may be null to only find the end
+     * @return the position just past the last record read
+     */
+    long forEachRecord(long fromPosition, long toPosition, RecordVisitor visitor) throws IOException {
+        long regionBase = fromPosition - fromPosition % regionSize;
+        int offset = (int) (fromPosition - regionBase);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, regionBase, regionSize);
+        while (regionBase + offset < toPosition) {
+            byte type = offset < regionSize ? buffer.get(offset) : NEXT_REGION;
+            if (type == 0) {
+                break;
+            }
+            if (type == NEXT_REGION) {
+                regionBase += regionSize;
+                offset = 0;
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, regionBase, regionSize);
+                continue;
+            }
+
+            int payloadLength = buffer.getInt(offset + 4);
+            if (visitor != null) {
+                String email = null;
+                if (payloadLength > 0) {
+                    byte[] bytes = new byte[payloadLength];
+                    buffer.get(offset + HEADER_SIZE, bytes);
+                    email = new String(bytes, StandardCharsets.US_ASCII);
+                }
+                visitor.visit(type, buffer.getInt(offset + 8), buffer.getInt(offset + 12), buffer.getLong(offset + 16), email);
+            }
+            offset += recordSize(payloadLength);
+        }
+        return regionBase + offset;
+    }
+
+    private void append(byte type, int accountId, int counterpartyId, long cents, String email) {
+        int payloadLength = email == null ? 0 : email.length();
+        int size = recordSize(payloadLength);
+        if (size > regionSize) {
+            throw new IllegalArgumentException("Record is larger than a journal region.");
+        }
+
+        int offset = (int) (position - regionStart);
+        if (offset + size > regionSize) {
+            offset = nextRegion(offset);
+        }
+
+        region.putInt(offset + 4, payloadLength);
+        region.putInt(offset + 8, accountId);
+        region.putInt(offset + 12, counterpartyId);
+        region.putLong(offset + 16, cents);
+        for (int i = 0; i < payloadLength; i++) {
+            region.put(offset + HEADER_SIZE + i, (byte) email.charAt(i));
+        }
+        region.put(offset, type); // written last so a torn record still reads as the end of the log
+
+        position = regionStart + offset + size;
+        unsynced++;
+        if (syncEvery > 0 && unsynced >= syncEvery) {
+            sync();
+        }
+    }
+
+    /**
+     * Marks the rest of the current region as unused and maps the next one
+     *
+     * @return the offset to write at in the new region
+     */
+    private int nextRegion(int offset) {
+        if (offset < regionSize) {
+            region.put(offset, NEXT_REGION);
+            position = regionStart + regionSize;
+        }
+        sync(); // always, since once the region is unmapped sync() can no longer reach its records
+        try {
+            regionStart += regionSize;
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = regionStart;
+        syncedPosition = regionStart;
+        return 0;
+    }
+
+    private static int recordSize(int payloadLength) {
+        return HEADER_SIZE + ((payloadLength + 7) & ~7);
+    }
+}
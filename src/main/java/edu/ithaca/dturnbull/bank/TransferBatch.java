@@ -0,0 +1,166 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * A list of transfers between ConcurrentBankAccounts that are validated and applied together.
+ *
+ * Instead of throwing, every transfer gets a one byte result code. Transfers are split into
+ * groups that share no account; groups run in parallel, and transfers inside a group are
+ * applied in the order they were added.
+ */
+public class TransferBatch {
+
+    public static final byte OK = 0;
+    public static final byte INVALID_AMOUNT = 1;
+    public static final byte INVALID_ACCOUNT = 2;
+    public static final byte INSUFFICIENT_FUNDS = 3;
+
+    private ConcurrentBankAccount[] from;
+    private ConcurrentBankAccount[] to;
+    private long[] cents;
+    private int size;
+
+    public TransferBatch() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize how many transfers to make room for up front
+     */
+    public TransferBatch(int expectedSize) {
+        int capacity = Math.max(expectedSize, 1);
+        from = new ConcurrentBankAccount[capacity];
+        to = new ConcurrentBankAccount[capacity];
+        cents = new long[capacity];
+    }
+
+    /**
+     * Adds a transfer to the batch, an invalid amount is reported by apply rather than thrown here
+     *
+     * @param fromAccount the account the money comes out of
+     * @param toAccount the account that is receiving the money
+     * @param amount the amount of money to transfer
+     */
+    public void add(ConcurrentBankAccount fromAccount, ConcurrentBankAccount toAccount, double amount) {
+        if (amount == 0.0) {
+            addCents(fromAccount, toAccount, 0);
+        } else if (BankAccount.isAmountValid(amount)) {
+            addCents(fromAccount, toAccount, BankAccount.toCents(amount));
+        } else {
+            addCents(fromAccount, toAccount, -1);
+        }
+    }
+
+    /**
+     * Adds a transfer given in cents to the batch
+     *
+     * @param fromAccount the account the money comes out of
+     * @param toAccount the account that is receiving the money
+     * @param amountCents the amount of money to transfer in cents
+     */
+    public void addCents(ConcurrentBankAccount fromAccount, ConcurrentBankAccount toAccount, long amountCents) {
+        if (size == cents.length) {
+            int capacity = size * 2;
+            from = Arrays.copyOf(from, capacity);
+            to = Arrays.copyOf(to, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+        }
+        from[size] = fromAccount;
+        to[size] = toAccount;
+        cents[size] = amountCents;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Validates and applies every transfer in the batch
+     *
+     * @return one result code per transfer, in the order they were added
+     */
+    public byte[] apply() {
+        byte[] results = new byte[size];
+
+        // Give each account a dense index and join the two accounts of every valid transfer
+        Map<ConcurrentBankAccount, Integer> indexes = new IdentityHashMap<>();
+        int[] fromIndex = new int[size];
+        int[] parent = new int[2 * size];
+        for (int i = 0; i < size; i++) {
+            fromIndex[i] = -1;
+            if (from[i] == null || to[i] == null) {
+                results[i] = INVALID_ACCOUNT;
+            } else if (cents[i] != 0 && !BankAccount.isCentsValid(cents[i])) {
+                results[i] = INVALID_AMOUNT;
+            } else {
+                fromIndex[i] = indexOf(indexes, parent, from[i]);
+                union(parent, fromIndex[i], indexOf(indexes, parent, to[i]));
+            }
+        }
+
+        // Bucket the transfers by group with a counting sort so each group keeps its order
+        int accounts = indexes.size();
+        int[] groupStart = new int[accounts + 1];
+        for (int i = 0; i < size; i++) {
+            if (fromIndex[i] >= 0) {
+                groupStart[find(parent, fromIndex[i]) + 1]++;
+            }
+        }
+        for (int g = 0; g < accounts; g++) {
+            groupStart[g + 1] += groupStart[g];
+        }
+        int[] next = Arrays.copyOf(groupStart, accounts);
+        int[] order = new int[groupStart[accounts]];
+        for (int i = 0; i < size; i++) {
+            if (fromIndex[i] >= 0) {
+                order[next[find(parent, fromIndex[i])]++] = i;
+            }
+        }
+
+        IntStream groups = IntStream.range(0, accounts).filter(g -> groupStart[g] < groupStart[g + 1]);
+        groups.parallel().forEach(g -> {
+            for (int k = groupStart[g]; k < groupStart[g + 1]; k++) {
+                int i = order[k];
+                try {
+                    if (cents[i] != 0 && !from[i].move(to[i], cents[i])) {
+                        results[i] = INSUFFICIENT_FUNDS;
+                    }
+                } catch (IllegalArgumentException e) {
+                    results[i] = INVALID_AMOUNT; // would take the receiving account over MAX_BALANCE_CENTS
+                }
+            }
+        });
+        return results;
+    }
+
+    private static int indexOf(Map<ConcurrentBankAccount, Integer> indexes, int[] parent, ConcurrentBankAccount account) {
+        Integer index = indexes.get(account);
+        if (index == null) {
+            index = indexes.size();
+            indexes.put(account, index);
+            parent[index] = index;
+        }
+        return index;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class AccountEngineTest {
+
+    @Test
+    void commands_apply_in_order() throws Exception {
+        BankAccount from = new BankAccount("a@b.com", 0.0);
+        BankAccount to = new BankAccount("c@d.com", 0.0);
+        AccountEngine engine = new AccountEngine(4); // wraps around the ring many times
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(engine.deposit(from, 1.0));
+            futures.add(engine.withdraw(from, 0.5)); // only works if the deposit before it was applied
+            futures.add(engine.transfer(from, to, 0.5));
+        }
+        for (CompletableFuture<Void> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        engine.close();
+
+        assertEquals(0, from.getBalanceCents());
+        assertEquals(50000, to.getBalanceCents());
+    }
+
+    @Test
+    void failures_complete_futures_exceptionally() throws Exception {
+        BankAccount from = new BankAccount("a@b.com", 10.0);
+        BankAccount to = new BankAccount("c@d.com", 0.0);
+        AccountEngine engine = new AccountEngine(16);
+
+        ExecutionException insufficient = assertThrows(ExecutionException.class, () -> engine.withdraw(from, 10.01).get()); // amount > balance, border
+        assertInstanceOf(InsufficientFundsException.class, insufficient.getCause());
+        ExecutionException invalid = assertThrows(ExecutionException.class, () -> engine.deposit(from, -0.01).get()); // negative, border
+        assertInstanceOf(IllegalArgumentException.class, invalid.getCause());
+        ExecutionException noAccount = assertThrows(ExecutionException.class, () -> engine.transfer(from, null, 1.0).get()); // null account
+        assertInstanceOf(IllegalArgumentException.class, noAccount.getCause());
+        assertThrows(IllegalArgumentException.class, () -> engine.deposit(null, 1.0)); // rejected before queueing
+
+        engine.transfer(from, to, 10.0).get(); // amount == balance, border
+        engine.close();
+        assertEquals(0, from.getBalanceCents());
+        assertEquals(1000, to.getBalanceCents());
+    }
+
+    @Test
+    void closed_engine_rejects_commands() throws Exception {
+        BankAccount acct = new BankAccount("a@b.com", 0.0);
+        AccountEngine engine = new AccountEngine(8);
+        CompletableFuture<Void> queued = engine.deposit(acct, 1.0);
+        engine.close();
+
+        assertTrue(queued.isDone()); // close waits for queued commands
+        assertThrows(IllegalStateException.class, () -> engine.deposit(acct, 1.0));
+        engine.close(); // closing twice is harmless
+        assertEquals(100, acct.getBalanceCents());
+    }
+
+    @Test
+    void many_producers_conserve_money() throws Exception {
+        BankAccount[] accounts = new BankAccount[4];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new BankAccount("user" + i + "@bank.com", 100.0);
+        }
+        AccountEngine engine = new AccountEngine(64);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                producers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    List<CompletableFuture<Void>> futures = new ArrayList<>();
+                    for (int i = 0; i < 5_000; i++) {
+                        BankAccount from = accounts[random.nextInt(accounts.length)];
+                        BankAccount to = accounts[random.nextInt(accounts.length)];
+                        futures.add(engine.transfer(from, to, (1 + random.nextInt(5000)) / 100.0));
+                    }
+                    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((ignored, e) -> null).join();
+                    return null;
+                }));
+            }
+            for (Future<?> producer : producers) {
+                producer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+            engine.close();
+        }
+
+        long total = 0;
+        for (BankAccount acct : accounts) {
+            assertTrue(acct.getBalanceCents() >= 0);
+            total += acct.getBalanceCents();
+        }
+        assertEquals(40000, total);
+    }
+
+    @Test
+    void invalid_capacity() {
+        assertThrows(IllegalArgumentException.class, () -> new AccountEngine(0));
+    }
+}
@@ -0,0 +1,130 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ithaca.dturnbull.bank.AccountImporter.ImportReport;
+import edu.ithaca.dturnbull.bank.AccountImporter.Rejection;
+
+
+class AccountImporterTest {
+
+    @TempDir
+    Path dir;
+
+    private static final String CSV = String.join("\n",
+            "email,startingBalance",
+            "a@b.com,200",
+            "  first.last@mail-archive.com , 50.5 ",
+            "",
+            "bad-@b.com,10",                 // invalid email
+            "c@d.com,-1",                    // negative
+            "e@f.com,10.001",                // too many decimals
+            "g@h.com,10.000\r",              // extra zero decimals are fine, CRLF line end
+            "i@j.com",                       // no amount
+            "k@l.com,1,2",                   // too many columns
+            "m@n.com,0",                     // zero starting balance, border
+            "o@p.com,.05");                  // no trailing newline
+
+    @Test
+    void valid_rows_imported_and_invalid_rows_reported() throws Exception {
+        Path file = dir.resolve("accounts.csv");
+        Files.writeString(file, CSV);
+        AccountStore store = new AccountStore();
+        ImportReport report = new AccountImporter(2, 1 << 16, 10).importCsv(file, store, true);
+
+        assertEquals(5, report.getImported());
+        assertEquals(5, report.getRejected());
+        assertEquals("a@b.com", store.getEmail(0));
+        assertEquals(20000, store.getBalanceCents(0));
+        assertEquals("first.last@mail-archive.com", store.getEmail(1));
+        assertEquals(5050, store.getBalanceCents(1));
+        assertEquals(1000, store.getBalanceCents(2));
+        assertEquals(0, store.getBalanceCents(3));
+        assertEquals("o@p.com", store.getEmail(4));
+        assertEquals(5, store.getBalanceCents(4));
+
+        List<Rejection> rejections = report.getRejections();
+        assertEquals(5, rejections.get(0).getLine());
+        assertEquals("Email address is invalid.", rejections.get(0).getReason());
+        assertEquals(6, rejections.get(1).getLine());
+        assertEquals("Starting balance is invalid.", rejections.get(2).getReason());
+        assertEquals(9, rejections.get(3).getLine());
+        assertEquals("Row must have an email and a starting balance.", rejections.get(4).getReason());
+    }
+
+    @Test
+    void tiny_chunks_give_the_same_result() throws Exception {
+        // Rows span chunk boundaries everywhere, and the longest row does not fit in a chunk
+        Path file = dir.resolve("accounts.csv");
+        Files.writeString(file, CSV);
+        AccountStore store = new AccountStore();
+        ImportReport report = new AccountImporter(3, 24, 2).importCsv(file, store, true);
+
+        assertEquals(4, report.getImported());
+        assertEquals(6, report.getRejected());
+        assertEquals(2, report.getRejections().size()); // capped, still all counted
+        assertEquals(3, report.getRejections().get(0).getLine());
+        assertEquals("Row is longer than the chunk size.", report.getRejections().get(0).getReason());
+        assertEquals("a@b.com", store.getEmail(0));
+        assertEquals("o@p.com", store.getEmail(3));
+
+        assertThrows(IllegalArgumentException.class, () -> new AccountImporter(0, 24, 2));
+    }
+
+    @Test
+    void many_rows_in_file_order() throws Exception {
+        Path file = dir.resolve("accounts.csv");
+        int rows = 200_000;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < rows; i++) {
+                writer.write("user" + i + "@bank.com," + (i % 1000) + "." + (i % 100 < 10 ? "0" : "") + (i % 100) + "\n");
+            }
+        }
+        AccountStore store = new AccountStore(rows);
+        ImportReport report = new AccountImporter(4, 4096, 10).importCsv(file, store, false);
+
+        assertEquals(rows, report.getImported());
+        assertEquals(0, report.getRejected());
+        for (int i = 0; i < rows; i += 997) {
+            assertEquals("user" + i + "@bank.com", store.getEmail(i));
+            assertEquals((i % 1000) * 100 + i % 100, store.getBalanceCents(i));
+        }
+    }
+
+    @Test
+    void parse_cents_follows_starting_balance_rules() {
+        // Equivalence class: valid plain decimals, including zero and the largest amount, border
+        assertEquals(0, parseCents("0"));
+        assertEquals(0, parseCents("0.00"));
+        assertEquals(100, parseCents("1"));
+        assertEquals(150, parseCents("1.5"));
+        assertEquals(105, parseCents("1.05"));
+        assertEquals(105, parseCents("1.050"));
+        assertEquals(10000, parseCents("100."));
+        assertEquals(50, parseCents(".5"));
+        assertEquals(BankAccount.MAX_BALANCE_CENTS, parseCents("46116860184273879.03")); // largest balance, border
+        // Equivalence class: invalid, border
+        assertEquals(-1, parseCents("1.051")); // more than 2 decimals
+        assertEquals(-1, parseCents("92233720368547758")); // does not fit in a long of cents
+        assertEquals(-1, parseCents("46116860184273879.04")); // over the largest balance, border
+        assertEquals(-1, parseCents("."));
+        assertEquals(-1, parseCents(""));
+        assertEquals(-1, parseCents("-1"));
+        assertEquals(-1, parseCents("+1"));
+        assertEquals(-1, parseCents("1e3"));
+        assertEquals(-1, parseCents("12a"));
+    }
+
+    private static long parseCents(String amount) {
+        byte[] bytes = amount.getBytes(StandardCharsets.US_ASCII);
+        return AccountImporter.parseCents(bytes, 0, bytes.length);
+    }
+}
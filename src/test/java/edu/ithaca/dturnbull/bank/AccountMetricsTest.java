@@ -0,0 +1,101 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.ithaca.dturnbull.bank.AccountMetrics.Operation;
+import edu.ithaca.dturnbull.bank.AccountMetrics.Stats;
+
+
+class AccountMetricsTest {
+
+    @Test
+    void operations_and_failures_are_counted() throws InsufficientFundsException {
+        AccountMetrics metrics = new AccountMetrics();
+        ConcurrentBankAccount from = metrics.open("a@b.com", 100.0);
+        ConcurrentBankAccount to = metrics.open("c@d.com", 0.0);
+        assertThrows(IllegalArgumentException.class, () -> metrics.open("bad", 10.0)); // invalid email
+
+        metrics.deposit(from, 10.0);
+        assertThrows(IllegalArgumentException.class, () -> metrics.deposit(from, 0.001)); // too many decimals
+        metrics.withdraw(from, 10.0);
+        assertThrows(InsufficientFundsException.class, () -> metrics.withdraw(from, 100.01)); // amount > balance, border
+        metrics.transfer(from, to, 100.0); // amount == balance, border
+        assertThrows(InsufficientFundsException.class, () -> metrics.transfer(from, to, 0.01));
+
+        Map<Operation, Stats> stats = metrics.snapshot();
+        assertEquals(3, stats.get(Operation.OPEN).getCount());
+        assertEquals(1, stats.get(Operation.OPEN).getIllegalArguments());
+        assertEquals(2, stats.get(Operation.DEPOSIT).getCount());
+        assertEquals(1, stats.get(Operation.DEPOSIT).getIllegalArguments());
+        assertEquals(2, stats.get(Operation.WITHDRAW).getCount());
+        assertEquals(1, stats.get(Operation.WITHDRAW).getInsufficientFunds());
+        assertEquals(2, stats.get(Operation.TRANSFER).getCount());
+        assertEquals(1, stats.get(Operation.TRANSFER).getInsufficientFunds());
+        assertEquals(0, stats.get(Operation.TRANSFER).getIllegalArguments());
+        assertEquals(2, stats.get(Operation.TRANSFER).getLatency().getTotalCount());
+        assertEquals(10000, to.getBalanceCents());
+    }
+
+    @Test
+    void snapshot_and_reset() {
+        AccountMetrics metrics = new AccountMetrics();
+        ConcurrentBankAccount acct = metrics.open("a@b.com", 0.0);
+        metrics.deposit(acct, 1.0);
+
+        assertEquals(1, metrics.snapshotAndReset().get(Operation.DEPOSIT).getCount());
+        Stats after = metrics.snapshot().get(Operation.DEPOSIT);
+        assertEquals(0, after.getCount());
+        assertEquals(0, after.getLatency().getTotalCount());
+        assertEquals(0, after.getLatency().getValueAtPercentile(99.0)); // empty
+    }
+
+    @Test
+    void sampled_latencies_keep_exact_counts() {
+        AccountMetrics metrics = new AccountMetrics(16);
+        ConcurrentBankAccount acct = metrics.open("a@b.com", 0.0);
+        for (int i = 0; i < 16_000; i++) {
+            metrics.deposit(acct, 0.01);
+        }
+        Stats stats = metrics.snapshot().get(Operation.DEPOSIT);
+        assertEquals(16_000, stats.getCount());
+        assertTrue(stats.getLatency().getTotalCount() > 500 && stats.getLatency().getTotalCount() < 2000); // about 1000
+        assertEquals(16_000, acct.getBalanceCents());
+
+        assertThrows(IllegalArgumentException.class, () -> new AccountMetrics(0));
+        assertThrows(IllegalArgumentException.class, () -> new AccountMetrics(3)); // not a power of two
+    }
+
+    @Test
+    void histogram_buckets() {
+        // Equivalence class: exact values below 32, border
+        assertEquals(0, LatencyHistogram.bucketOf(-5));
+        assertEquals(31, LatencyHistogram.bucketOf(31));
+        assertEquals(31, LatencyHistogram.highestValueOf(31));
+        // Equivalence class: log-linear buckets, every value is inside its own bucket
+        for (long value : new long[] {32, 33, 63, 64, 65, 1000, 123_456_789, 1L << 39}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.lowestValueOf(bucket) <= value && value <= LatencyHistogram.highestValueOf(bucket));
+            assertTrue(LatencyHistogram.highestValueOf(bucket) - value <= value / 32);
+        }
+        // Equivalence class: very large values share the last bucket
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void histogram_percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot(false);
+        assertEquals(1000, snapshot.getTotalCount());
+        assertEquals(500_000, snapshot.getValueAtPercentile(50.0), 500_000 / 32.0);
+        assertEquals(990_000, snapshot.getValueAtPercentile(99.0), 990_000 / 32.0);
+        assertEquals(1_000_000, snapshot.getMax(), 1_000_000 / 32.0);
+        assertEquals(500_500, snapshot.getMean(), 500_500 / 32.0);
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getValueAtPercentile(100.01)); // above 100, border
+    }
+}
@@ -0,0 +1,115 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class AccountRegistryTest {
+
+    @Test
+    void create_and_find() {
+        AccountRegistry registry = new AccountRegistry();
+        ConcurrentBankAccount acct = registry.create("a@b.com", 200.0);
+
+        assertSame(acct, registry.find("a@b.com"));
+        assertSame(acct, registry.find("A@B.COM")); // emails ignore case
+        assertNull(registry.find("c@d.com")); // not registered
+        assertNull(registry.find(null)); // null, border
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void create_rejects_invalid_and_duplicate_emails() {
+        AccountRegistry registry = new AccountRegistry();
+        registry.create("a@b.com", 0.0);
+
+        assertThrows(IllegalArgumentException.class, () -> registry.create("a@b.com", 10.0)); // duplicate
+        assertThrows(IllegalArgumentException.class, () -> registry.create("A@b.com", 10.0)); // duplicate ignoring case
+        assertThrows(IllegalArgumentException.class, () -> registry.create("a..b@b.com", 10.0)); // invalid email
+        assertThrows(IllegalArgumentException.class, () -> registry.create("c@d.com", -1.0)); // invalid balance
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void remove_frees_the_email() {
+        AccountRegistry registry = new AccountRegistry();
+        ConcurrentBankAccount acct = registry.create("a@b.com", 10.0);
+
+        assertSame(acct, registry.remove("A@b.com"));
+        assertNull(registry.remove("a@b.com")); // already removed
+        assertNull(registry.remove(null)); // null, border
+        assertEquals(0, registry.size());
+        assertNotSame(acct, registry.create("a@b.com", 10.0));
+    }
+
+    @Test
+    void removing_keeps_the_other_accounts_findable() {
+        AccountRegistry registry = new AccountRegistry(); // small tables, so creating resizes them
+        for (int i = 0; i < 5000; i++) {
+            registry.create("user" + i + "@b.com", 1.0);
+        }
+        for (int i = 0; i < 5000; i += 2) {
+            assertNotNull(registry.remove("USER" + i + "@b.com"));
+        }
+
+        assertEquals(2500, registry.size());
+        for (int i = 0; i < 5000; i++) {
+            if (i % 2 == 0) {
+                assertNull(registry.find("user" + i + "@b.com")); // removed
+            } else {
+                assertEquals("user" + i + "@b.com", registry.find("user" + i + "@b.com").getEmail());
+            }
+        }
+        assertNull(registry.remove("user0@b.com")); // already removed, border
+        registry.create("user0@b.com", 1.0); // the email is free again
+        assertEquals(2501, registry.size());
+    }
+
+    @Test
+    void normalize_keeps_lower_case_emails() {
+        String email = "a.b@mail.com";
+        assertSame(email, AccountRegistry.normalize(email));
+        assertEquals("a.b@mail.com", AccountRegistry.normalize("A.b@Mail.com"));
+    }
+
+    @Test
+    void concurrent_create_of_one_email_has_one_winner() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        registry.create("hot@bank.com", 1.0);
+                        return true;
+                    } catch (IllegalArgumentException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int winners = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    winners++;
+                }
+            }
+            assertEquals(1, winners);
+            assertEquals(1, registry.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
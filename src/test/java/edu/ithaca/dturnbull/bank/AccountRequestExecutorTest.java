@@ -0,0 +1,116 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class AccountRequestExecutorTest {
+
+    @Test
+    void operations_run_against_registry() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        registry.create("a@b.com", 200.0);
+        registry.create("c@d.com", 50.0);
+
+        try (AccountRequestExecutor executor = new AccountRequestExecutor(registry, 4)) {
+            executor.deposit("a@b.com", 0.01).get();
+            executor.withdraw("a@b.com", 0.01).get();
+            executor.transfer("a@b.com", "c@d.com", 100.0).get();
+            assertEquals(100.0, executor.getBalance("a@b.com").get(), 0.001);
+            assertEquals(150.0, executor.getBalance("c@d.com").get(), 0.001);
+
+            ExecutionException insufficient = assertThrows(ExecutionException.class, () -> executor.withdraw("a@b.com", 100.01).get()); // amount > balance, border
+            assertInstanceOf(InsufficientFundsException.class, insufficient.getCause());
+            ExecutionException missing = assertThrows(ExecutionException.class, () -> executor.deposit("x@y.com", 1.0).get()); // no such account
+            assertInstanceOf(IllegalArgumentException.class, missing.getCause());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new AccountRequestExecutor(registry, 0));
+    }
+
+    @Test
+    void hot_account_concurrency_is_bounded() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        ConcurrentBankAccount hot = registry.create("hot@bank.com", 0.0);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        try (AccountRequestExecutor executor = new AccountRequestExecutor(registry, 3)) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit("hot@bank.com", () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(1);
+                    hot.deposit(0.01);
+                    running.decrementAndGet();
+                    return null;
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(60, TimeUnit.SECONDS);
+        }
+        assertTrue(maxRunning.get() <= 3);
+        assertEquals(200, hot.getBalanceCents());
+    }
+
+    @Test
+    void load_100k_requests_in_flight() throws Exception {
+        // Every request blocks until the gate opens, so all 100k are in flight at once: those holding
+        // a permit are started, the rest are virtual threads parked waiting for one.
+        int accounts = 10_000;
+        int requests = 100_000;
+        int permits = 16;
+        AccountRegistry registry = new AccountRegistry(accounts);
+        int[] perStripe = new int[AccountRequestExecutor.STRIPES];
+        for (int i = 0; i < accounts; i++) {
+            registry.create("user" + i + "@bank.com", 0.0);
+            perStripe[AccountRequestExecutor.stripe("user" + i + "@bank.com")] += requests / accounts;
+        }
+        int expectStarted = 0;
+        for (int count : perStripe) {
+            expectStarted += Math.min(count, permits);
+        }
+        CountDownLatch gate = new CountDownLatch(1);
+        AtomicInteger started = new AtomicInteger();
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        try (AccountRequestExecutor executor = new AccountRequestExecutor(registry, permits)) {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(requests);
+            try {
+                for (int i = 0; i < requests; i++) {
+                    String email = "user" + (i % accounts) + "@bank.com";
+                    futures.add(executor.submit(email, () -> {
+                        started.incrementAndGet();
+                        gate.await();
+                        registry.find(email).deposit(0.01);
+                        return null;
+                    }));
+                }
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+                while (started.get() < expectStarted || executor.waitingRequests() < requests - expectStarted) {
+                    assertTrue(System.nanoTime() < deadline, started.get() + " requests started, " + executor.waitingRequests() + " waiting");
+                    Thread.sleep(10);
+                }
+                assertEquals(expectStarted, started.get()); // never more than permits per stripe
+                System.gc(); // count what the parked requests keep alive, not garbage from submitting them
+                long heapInFlight = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+                // a parked virtual thread with its stack chunk, future and request measured about 2.4 KB
+                assertTrue(heapInFlight < requests * 3L * 1024, "100k in flight requests used " + heapInFlight + " bytes");
+            } finally {
+                gate.countDown();
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(120, TimeUnit.SECONDS);
+        }
+        for (int i = 0; i < accounts; i++) {
+            assertEquals(requests / accounts, registry.find("user" + i + "@bank.com").getBalanceCents());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class AccountSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void write_and_load_round_trip() throws IOException {
+        AccountStore store = new AccountStore();
+        store.create("a@b.com", 200.0);
+        store.createCents("first.last@mail-archive.com", 5001);
+        Path file = dir.resolve("accounts.snap");
+
+        AccountSnapshot.write(store, null, file);
+        AccountStore loaded = AccountSnapshot.load(file, null);
+
+        assertEquals(2, loaded.size());
+        assertEquals("a@b.com", loaded.getEmail(0));
+        assertEquals("first.last@mail-archive.com", loaded.getEmail(1));
+        assertEquals(20000, loaded.getBalanceCents(0));
+        assertEquals(5001, loaded.getBalanceCents(1));
+
+        loaded.createCents("c@d.com", 1); // a loaded store keeps growing
+        assertEquals("c@d.com", loaded.getEmail(2));
+    }
+
+    @Test
+    void empty_store_round_trip() throws IOException {
+        Path file = dir.resolve("accounts.snap");
+        AccountSnapshot.write(new AccountStore(), null, file);
+        AccountStore loaded = AccountSnapshot.load(file, null);
+
+        assertEquals(0, loaded.size());
+        assertEquals(0, loaded.createCents("a@b.com", 1));
+    }
+
+    @Test
+    void load_rejects_files_that_are_not_snapshots() throws IOException {
+        Path file = dir.resolve("garbage.snap");
+        Files.write(file, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> AccountSnapshot.load(file, null));
+    }
+
+    @Test
+    void recover_from_snapshot_and_journal_tail_matches_live_state() throws Exception {
+        for (int parallelism : new int[] {1, 3, 8}) {
+            Path journalFile = dir.resolve("journal-" + parallelism + ".bin");
+            Path snapshotFile = dir.resolve("accounts-" + parallelism + ".snap");
+            AccountStore live;
+            try (TransactionJournal journal = new TransactionJournal(journalFile, 0)) {
+                live = new AccountStore(16, journal);
+                randomOperations(live, 0, 2000);
+                AccountSnapshot.write(live, journal, snapshotFile);
+                randomOperations(live, 50, 2000); // tail, including new accounts
+            }
+
+            try (TransactionJournal journal = new TransactionJournal(journalFile, 0)) {
+                AccountStore recovered = AccountSnapshot.recover(snapshotFile, journal, parallelism);
+                assertSameAccounts(live, recovered);
+            }
+        }
+    }
+
+    @Test
+    void recover_without_snapshot_replays_whole_journal() throws Exception {
+        Path journalFile = dir.resolve("journal.bin");
+        AccountStore live;
+        try (TransactionJournal journal = new TransactionJournal(journalFile, 0)) {
+            live = new AccountStore(16, journal);
+            randomOperations(live, 0, 1000);
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(journalFile, 0)) {
+            AccountStore recovered = AccountSnapshot.recover(dir.resolve("missing.snap"), journal, 4);
+            assertSameAccounts(live, recovered);
+            assertThrows(IllegalArgumentException.class, () -> AccountSnapshot.recover(dir.resolve("missing.snap"), journal, 0));
+        }
+    }
+
+    @Test
+    void recovered_store_keeps_recording_history() throws Exception {
+        Path journalFile = dir.resolve("journal-history.bin");
+        Path snapshotFile = dir.resolve("accounts-history.snap");
+        try (TransactionJournal journal = new TransactionJournal(journalFile, 0)) {
+            AccountStore live = new AccountStore(16, journal, new TransactionHistory(4));
+            randomOperations(live, 0, 100);
+            AccountSnapshot.write(live, journal, snapshotFile);
+        }
+
+        for (Path snapshot : new Path[] {snapshotFile, dir.resolve("missing.snap")}) {
+            try (TransactionJournal journal = new TransactionJournal(journalFile, 0)) {
+                TransactionHistory history = new TransactionHistory(4);
+                AccountStore recovered = AccountSnapshot.recover(snapshot, journal, history, 2);
+                assertEquals(0, history.size(0)); // replayed records are not history
+                recovered.depositCents(0, 5);
+                recovered.transferCents(0, 1, 5);
+
+                long[] timestamps = new long[4];
+                long[] cents = new long[4];
+                int[] counterparties = new int[4];
+                assertEquals(2, history.copyRecent(0, timestamps, cents, counterparties));
+                assertEquals(-5, cents[0]);
+                assertEquals(1, counterparties[0]);
+                assertEquals(5, cents[1]);
+                assertEquals(1, history.size(1));
+            }
+        }
+    }
+
+    private static void randomOperations(AccountStore store, int newAccounts, int operations) {
+        Random random = new Random(345 + store.size());
+        for (int i = 0; i < 20 + newAccounts; i++) {
+            store.createCents("user" + store.size() + "@bank.com", random.nextInt(10_000));
+        }
+        for (int i = 0; i < operations; i++) {
+            int a = random.nextInt(store.size());
+            int b = random.nextInt(store.size());
+            long cents = 1 + random.nextInt(5_000);
+            try {
+                switch (random.nextInt(3)) {
+                    case 0 -> store.depositCents(a, cents);
+                    case 1 -> store.withdrawCents(a, cents);
+                    default -> store.transferCents(a, b, cents);
+                }
+            } catch (InsufficientFundsException e) {
+                // failed operations are not journaled
+            }
+        }
+    }
+
+    private static void assertSameAccounts(AccountStore expected, AccountStore actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int id = 0; id < expected.size(); id++) {
+            assertEquals(expected.getEmail(id), actual.getEmail(id));
+            assertEquals(expected.getBalanceCents(id), actual.getBalanceCents(id));
+        }
+    }
+}
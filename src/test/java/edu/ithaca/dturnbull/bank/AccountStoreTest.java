@@ -0,0 +1,101 @@
+package edu.ithaca.dturnbull.bank;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class AccountStoreTest {
+
+    @Test
+    void create_assigns_sequential_ids() {
+        AccountStore store = new AccountStore(1); // grows past the expected size
+        int a = store.create("a@b.com", 200.0);
+        int b = store.createCents("first.last@mail-archive.com", 5001);
+
+        assertEquals(0, a);
+        assertEquals(1, b);
+        assertEquals(2, store.size());
+        assertEquals("a@b.com", store.getEmail(a));
+        assertEquals("first.last@mail-archive.com", store.getEmail(b));
+        assertEquals(200.0, store.getBalance(a), 0.001);
+        assertEquals(5001, store.getBalanceCents(b));
+    }
+
+    @Test
+    void create_same_rules_as_bank_account() {
+        AccountStore store = new AccountStore();
+
+        assertThrows(IllegalArgumentException.class, () -> store.create("", 100)); // invalid email, border
+        assertThrows(IllegalArgumentException.class, () -> store.create("a@b.com", -1.0)); // negative balance
+        assertThrows(IllegalArgumentException.class, () -> store.create("a@b.com", 10.999)); // 3 decimals
+        assertThrows(IllegalArgumentException.class, () -> store.createCents("a@b.com", -1)); // negative cents, border
+        assertEquals(0, store.size());
+
+        // more accounts than an array can hold, border
+        assertThrows(IllegalArgumentException.class, () -> new AccountStore(AccountStore.MAX_ARRAY_LENGTH + 1));
+    }
+
+    @Test
+    void operations_same_rules_as_bank_account() throws InsufficientFundsException {
+        AccountStore store = new AccountStore();
+        int from = store.create("a@b.com", 200.0);
+        int to = store.create("c@d.com", 50.0);
+
+        store.deposit(from, 0.01); // 2 decimals, border
+        store.withdraw(from, 0.01); // 2 decimals, border
+        store.transfer(from, to, 100.0); // middle
+        store.depositCents(to, 0); // zero, border
+        assertEquals(100.0, store.getBalance(from), 0.001);
+        assertEquals(150.0, store.getBalance(to), 0.001);
+
+        assertThrows(InsufficientFundsException.class, () -> store.withdraw(from, 100.01)); // amount > balance, border
+        assertThrows(InsufficientFundsException.class, () -> store.transfer(from, to, 100.01)); // amount > balance, border
+        assertThrows(IllegalArgumentException.class, () -> store.deposit(from, -0.01)); // negative, border
+        assertThrows(IllegalArgumentException.class, () -> store.withdraw(from, 10.999)); // 3 decimals
+        assertThrows(IllegalArgumentException.class, () -> store.transfer(from, 2, 1.0)); // no such account
+        assertThrows(IllegalArgumentException.class, () -> store.getBalance(-1)); // no such account, border
+        assertEquals(100.0, store.getBalance(from), 0.001);
+        assertEquals(150.0, store.getBalance(to), 0.001);
+
+        store.withdraw(from, 100.0); // amount == balance, border
+        assertEquals(0, store.getBalanceCents(from));
+    }
+
+    @Test
+    void totalBalanceCents_sums_every_account() {
+        AccountStore store = new AccountStore();
+        long expected = 0;
+        for (int i = 0; i < 10_000; i++) {
+            store.createCents("user" + i + "@bank.com", i);
+            expected += i;
+        }
+        assertEquals(expected, store.totalBalanceCents());
+        assertEquals("user9999@bank.com", store.getEmail(9999));
+    }
+
+    @Test
+    void create_past_the_email_storage_limit_changes_nothing() {
+        // one account whose email bytes end 3 short of the limit, without allocating them
+        int nearlyFull = AccountStore.MAX_ARRAY_LENGTH - 3;
+        AccountStore store = new AccountStore(new long[] {5}, new int[] {nearlyFull}, new byte[0], 1, null, null);
+
+        assertThrows(IllegalStateException.class, () -> store.createCents("a@b.com", 100)); // 4 bytes over the limit
+        assertEquals(1, store.size());
+        assertEquals(5, store.getBalanceCents(0));
+    }
+
+    @Test
+    void balance_cannot_go_over_max() throws InsufficientFundsException {
+        long max = BankAccount.MAX_BALANCE_CENTS;
+        AccountStore store = new AccountStore();
+        int full = store.createCents("a@b.com", max); // the max, border
+        int from = store.createCents("c@d.com", 100);
+
+        assertThrows(IllegalArgumentException.class, () -> store.createCents("e@f.com", max + 1)); // one cent over, border
+        assertThrows(IllegalArgumentException.class, () -> store.depositCents(full, 1));
+        assertThrows(IllegalArgumentException.class, () -> store.transferCents(from, full, 1));
+        assertEquals(max, store.getBalanceCents(full));
+        assertEquals(100, store.getBalanceCents(from));
+        assertEquals(2, store.size());
+    }
+}
@@ -0,0 +1,54 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class AmountValidatorTest {
+
+    private static final double[] SPECIAL = {0.0, -0.0, 0.01, -0.01, 0.001, 0.005, 0.015, 1.0 / 3, 100.0, 100.001,
+            Double.MIN_VALUE, Double.MAX_VALUE, 0x1p61, 0x1p63 / 100, Math.nextUp(0x1p63 / 100), 0x1p64 / 100,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN, 92233720368547758.07, 1e-9};
+
+    @Test
+    void matches_isAmountValid() {
+        SplittableRandom random = new SplittableRandom(17);
+        double[] amounts = new double[10_000 + SPECIAL.length];
+        for (int i = 0; i < 10_000; i++) {
+            amounts[i] = switch (i % 4) {
+                case 0 -> random.nextInt(1_000_000) / 100.0; // whole cents
+                case 1 -> random.nextDouble() * 1000; // almost never whole cents
+                case 2 -> -random.nextInt(1_000_000) / 100.0; // negative or zero
+                default -> random.nextInt(1_000_000) / 1000.0; // 3 decimals, sometimes whole cents
+            };
+        }
+        System.arraycopy(SPECIAL, 0, amounts, 10_000, SPECIAL.length);
+
+        long[] bitmap = new long[(amounts.length + 63) / 64];
+        int count = AmountValidator.validate(amounts, bitmap);
+        int expected = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            boolean valid = BankAccount.isAmountValid(amounts[i]);
+            assertEquals(valid, (bitmap[i / 64] >>> (i % 64) & 1) == 1, "amount " + amounts[i]);
+            expected += valid ? 1 : 0;
+        }
+        assertEquals(expected, count);
+        assertEquals(expected, AmountValidator.countValid(amounts));
+    }
+
+    @Test
+    void bitmap_size_and_empty_arrays() {
+        assertEquals(0, AmountValidator.countValid(new double[0]));
+        assertEquals(0, AmountValidator.validate(new double[0], new long[0]));
+        assertEquals(2, AmountValidator.validate(new double[] {0.01, -1, 2.0}, new long[1])); // one partial word
+        assertThrows(IllegalArgumentException.class, () -> AmountValidator.validate(new double[65], new long[1])); // one word short, border
+    }
+
+    @Test
+    void count_valid_cents() {
+        // Equivalence class: positive cents valid, zero and negative not, border
+        assertEquals(2, AmountValidator.countValidCents(new long[] {1, 0, -1, Long.MAX_VALUE, Long.MIN_VALUE}));
+    }
+}
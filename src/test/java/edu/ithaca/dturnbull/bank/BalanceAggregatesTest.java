@@ -0,0 +1,96 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class BalanceAggregatesTest {
+
+    @Test
+    void operations_update_totals_and_buckets() throws InsufficientFundsException {
+        BalanceAggregates aggregates = new BalanceAggregates(1000, 100_000); // under $10, under $1000, the rest
+        ConcurrentBankAccount a = new ConcurrentBankAccount("a@b.com", 5.0, aggregates);
+        ConcurrentBankAccount b = new ConcurrentBankAccount("c@d.com", 500.0, aggregates);
+        ConcurrentBankAccount outside = new ConcurrentBankAccount("e@f.com", 100.0);
+
+        assertEquals(2, aggregates.getAccountCount());
+        assertEquals(50500, aggregates.getTotalBalanceCents());
+        assertEquals(1, aggregates.getAccountsInBucket(0));
+        assertEquals(1, aggregates.getAccountsInBucket(1));
+
+        a.deposit(5.0); // balance == bound, border: moves up a bucket
+        assertEquals(0, aggregates.getAccountsInBucket(0));
+        assertEquals(2, aggregates.getAccountsInBucket(1));
+        b.withdraw(499.99);
+        assertEquals(1, aggregates.getAccountsInBucket(0));
+        assertFalse(b.tryWithdraw(1.0)); // failed, nothing changes
+        b.transfer(a, 0.01);
+        a.transfer(outside, 10.0); // leaves these aggregates
+        outside.deposit(1000.0); // not counted
+        outside.transfer(a, 1000.0);
+        assertEquals(1000.01, aggregates.getTotalBalance(), 0.001);
+        assertEquals(1, aggregates.getAccountsInBucket(2));
+        assertEquals(1, aggregates.getAccountsInBucket(0));
+        assertEquals(3, aggregates.getBucketCount());
+    }
+
+    @Test
+    void bucket_bounds() {
+        BalanceAggregates aggregates = new BalanceAggregates(0, 1, 100);
+        // Equivalence class: below, on and above each bound, border
+        assertEquals(0, aggregates.bucketOf(-1));
+        assertEquals(1, aggregates.bucketOf(0));
+        assertEquals(2, aggregates.bucketOf(1));
+        assertEquals(2, aggregates.bucketOf(99));
+        assertEquals(3, aggregates.bucketOf(100));
+        assertEquals(1, new BalanceAggregates().getBucketCount()); // no bounds, one bucket
+        assertThrows(IllegalArgumentException.class, () -> new BalanceAggregates(5, 5));
+    }
+
+    @Test
+    void concurrent_transfers_match_a_full_scan() throws Exception {
+        BalanceAggregates aggregates = new BalanceAggregates(1000, 10_000, 20_000);
+        ConcurrentBankAccount[] accounts = new ConcurrentBankAccount[16];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new ConcurrentBankAccount("user" + i + "@bank.com", 100.0, aggregates);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                workers.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20_000; i++) {
+                        ConcurrentBankAccount from = accounts[random.nextInt(accounts.length)];
+                        ConcurrentBankAccount to = accounts[random.nextInt(accounts.length)];
+                        from.tryTransfer(to, (1 + random.nextInt(5000)) / 100.0);
+                        assertEquals(160_000, aggregates.getTotalBalanceCents()); // transfers never move the total
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long[] expected = new long[aggregates.getBucketCount()];
+        for (ConcurrentBankAccount account : accounts) {
+            expected[aggregates.bucketOf(account.getBalanceCents())]++;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], aggregates.getAccountsInBucket(i));
+        }
+        assertEquals(16, aggregates.getAccountCount());
+    }
+}
@@ -399,4 +399,103 @@ class BankAccountTest {
     }
 
 
-}
\ No newline at end of file
+    @Test
+    void isCentsValidTest() {
+        assertTrue(BankAccount.isCentsValid(1)); // smallest valid amount, border
+        assertTrue(BankAccount.isCentsValid(10050)); // middle
+        assertFalse(BankAccount.isCentsValid(0)); // zero, border
+        assertFalse(BankAccount.isCentsValid(-1)); // negative, border
+    }
+
+    @Test
+    void ofCents_constructor() {
+        BankAccount acct = BankAccount.ofCents("a@b.com", 20001);
+        assertEquals(20001, acct.getBalanceCents());
+        assertEquals(200.01, acct.getBalance(), 0.001);
+        assertEquals(0, BankAccount.ofCents("a@b.com", 0).getBalanceCents()); // zero, border
+
+        assertThrows(IllegalArgumentException.class, () -> BankAccount.ofCents("a@b.com", -1)); // negative, border
+        assertThrows(IllegalArgumentException.class, () -> BankAccount.ofCents("", 100)); // invalid email
+    }
+
+    @Test
+    void cents_operations_match_double_operations() throws InsufficientFundsException {
+        // Equivalence class of the cents API behaving like the double API
+        BankAccount from = BankAccount.ofCents("a@b.com", 20000);
+        BankAccount to = BankAccount.ofCents("c@d.com", 5000);
+
+        from.depositCents(1); // border
+        from.withdrawCents(2501); // middle
+        from.transferCents(to, 7500); // middle
+        assertEquals(10000, from.getBalanceCents());
+        assertEquals(12500, to.getBalanceCents());
+
+        from.withdrawCents(0); // zero, border
+        assertThrows(InsufficientFundsException.class, () -> from.withdrawCents(10001)); // amount > balance, border
+        assertThrows(InsufficientFundsException.class, () -> from.transferCents(to, 10001)); // amount > balance, border
+        assertThrows(IllegalArgumentException.class, () -> from.depositCents(-1)); // negative, border
+        assertThrows(IllegalArgumentException.class, () -> from.transferCents(null, 1)); // null account
+        assertEquals(10000, from.getBalanceCents());
+        assertEquals(12500, to.getBalanceCents());
+    }
+
+    @Test
+    void balance_does_not_drift_over_many_operations() {
+        // Equivalence class of long runs of decimal amounts, which drift when added as doubles
+        BankAccount acct = new BankAccount("a@b.com", 0.0);
+        for (int i = 0; i < 1_000_000; i++) {
+            acct.deposit(0.1);
+        }
+        assertEquals(10_000_000, acct.getBalanceCents());
+        assertEquals(100000.0, acct.getBalance());
+    }
+
+    @Test
+    void tryWithdraw_reports_insufficient_funds_without_throwing() {
+        // Equivalence classes match withdraw, except amount > balance returns false
+        BankAccount acct = new BankAccount("a@b.com", 200.0);
+
+        assertTrue(acct.tryWithdraw(0.0)); // zero, border
+        assertTrue(acct.tryWithdraw(50.0)); // middle
+        assertFalse(acct.tryWithdraw(150.01)); // amount > balance, border
+        assertEquals(150.0, acct.getBalance(), 0.001);
+        assertThrows(IllegalArgumentException.class, () -> acct.tryWithdraw(-0.01)); // negative, border
+        assertThrows(IllegalArgumentException.class, () -> acct.tryWithdraw(10.999)); // 3 decimals
+        assertTrue(acct.tryWithdraw(150.0)); // amount == balance, border
+        assertEquals(0.0, acct.getBalance(), 0.001);
+    }
+
+    @Test
+    void tryTransfer_reports_insufficient_funds_without_throwing() {
+        BankAccount from = new BankAccount("a@b.com", 200.0);
+        BankAccount to = new BankAccount("c@d.com", 50.0);
+
+        assertTrue(from.tryTransfer(to, 100.0)); // middle
+        assertFalse(from.tryTransfer(to, 100.01)); // amount > balance, border
+        assertEquals(100.0, from.getBalance(), 0.001);
+        assertEquals(150.0, to.getBalance(), 0.001);
+        assertThrows(IllegalArgumentException.class, () -> from.tryTransfer(null, 10.0)); // null account
+        assertThrows(IllegalArgumentException.class, () -> from.tryTransfer(to, -0.01)); // negative, border
+    }
+
+    @Test
+    void balance_cannot_go_over_max() throws InsufficientFundsException {
+        long max = BankAccount.MAX_BALANCE_CENTS;
+        BankAccount full = BankAccount.ofCents("a@b.com", max - 5);
+        full.depositCents(5); // up to the max, border
+        assertEquals(max, full.getBalanceCents());
+        assertThrows(IllegalArgumentException.class, () -> full.depositCents(1)); // one cent over, border
+        assertEquals(max, full.getBalanceCents());
+        assertThrows(IllegalArgumentException.class, () -> BankAccount.ofCents("a@b.com", max + 1));
+        assertThrows(IllegalArgumentException.class, () -> BankAccount.ofCents("a@b.com", Long.MAX_VALUE));
+
+        // a transfer that would overflow the receiver changes neither balance
+        BankAccount from = BankAccount.ofCents("c@d.com", 100);
+        assertThrows(IllegalArgumentException.class, () -> from.transferCents(full, 1));
+        assertThrows(IllegalArgumentException.class, () -> from.tryTransfer(full, 0.01));
+        assertEquals(100, from.getBalanceCents());
+        assertEquals(max, full.getBalanceCents());
+        full.transferCents(full, max); // to itself, the balance never leaves
+        assertEquals(max, full.getBalanceCents());
+    }
+}
@@ -0,0 +1,223 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class ConcurrentBankAccountTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void constructorTest() {
+        ConcurrentBankAccount acct = new ConcurrentBankAccount("a@b.com", 200);
+
+        assertEquals("a@b.com", acct.getEmail());
+        assertEquals(200, acct.getBalance(), 0.001);
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBankAccount("", 100)); // invalid email, border
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBankAccount("a@b.com", -1.0)); // negative balance
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentBankAccount("a@b.com", 10.999)); // 3 decimals
+    }
+
+    @Test
+    void withdraw_same_rules_as_bank_account() throws InsufficientFundsException {
+        ConcurrentBankAccount acct = new ConcurrentBankAccount("a@b.com", 200.0);
+
+        acct.withdraw(0.0); // zero, border
+        acct.withdraw(100.0); // middle
+        assertEquals(100.0, acct.getBalance(), 0.001);
+        assertThrows(InsufficientFundsException.class, () -> acct.withdraw(100.01)); // amount > balance, border
+        assertThrows(IllegalArgumentException.class, () -> acct.withdraw(-0.01)); // negative, border
+        assertThrows(IllegalArgumentException.class, () -> acct.withdraw(10.999)); // 3 decimals
+        acct.withdraw(100.0); // amount == balance, border
+        assertEquals(0.0, acct.getBalance(), 0.001);
+    }
+
+    @Test
+    void deposit_same_rules_as_bank_account() {
+        ConcurrentBankAccount acct = new ConcurrentBankAccount("a@b.com", 200.0);
+
+        acct.deposit(0.0); // zero, border
+        acct.deposit(0.01); // 2 decimals, border
+        assertEquals(200.01, acct.getBalance(), 0.001);
+        assertThrows(IllegalArgumentException.class, () -> acct.deposit(-0.01)); // negative, border
+        assertThrows(IllegalArgumentException.class, () -> acct.deposit(10.999)); // 3 decimals
+        assertEquals(200.01, acct.getBalance(), 0.001);
+    }
+
+    @Test
+    void transfer_same_rules_as_bank_account() throws InsufficientFundsException {
+        ConcurrentBankAccount from = new ConcurrentBankAccount("a@b.com", 200.0);
+        ConcurrentBankAccount to = new ConcurrentBankAccount("c@d.com", 50.0);
+
+        from.transfer(to, 100.0); // middle
+        assertEquals(100.0, from.getBalance(), 0.001);
+        assertEquals(150.0, to.getBalance(), 0.001);
+
+        assertThrows(IllegalArgumentException.class, () -> from.transfer(null, 10.0)); // null account
+        assertThrows(IllegalArgumentException.class, () -> from.transfer(to, -0.01)); // negative, border
+        assertThrows(InsufficientFundsException.class, () -> from.transfer(to, 100.01)); // amount > balance, border
+        assertEquals(100.0, from.getBalance(), 0.001);
+        assertEquals(150.0, to.getBalance(), 0.001);
+    }
+
+    @Test
+    void try_methods_report_insufficient_funds_without_throwing() {
+        ConcurrentBankAccount from = new ConcurrentBankAccount("a@b.com", 200.0);
+        ConcurrentBankAccount to = new ConcurrentBankAccount("c@d.com", 50.0);
+
+        assertTrue(from.tryWithdraw(50.0)); // middle
+        assertFalse(from.tryWithdraw(150.01)); // amount > balance, border
+        assertTrue(from.tryTransfer(to, 100.0)); // middle
+        assertFalse(from.tryTransfer(to, 50.01)); // amount > balance, border
+        assertEquals(50.0, from.getBalance(), 0.001);
+        assertEquals(150.0, to.getBalance(), 0.001);
+        assertThrows(IllegalArgumentException.class, () -> from.tryWithdraw(-0.01)); // negative, border
+        assertThrows(IllegalArgumentException.class, () -> from.tryTransfer(null, 1.0)); // null account
+    }
+
+    @Test
+    void stress_hot_account_deposits_and_withdrawals_conserve_money() throws Exception {
+        // Every thread hits the same account, successful withdrawals are counted so the final balance is exact
+        ConcurrentBankAccount acct = new ConcurrentBankAccount("a@b.com", 1000.0);
+        AtomicLong depositedCents = new AtomicLong();
+        AtomicLong withdrawnCents = new AtomicLong();
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                long cents = 1 + random.nextInt(500);
+                if (random.nextBoolean()) {
+                    acct.deposit(cents / 100.0);
+                    depositedCents.addAndGet(cents);
+                } else {
+                    try {
+                        acct.withdraw(cents / 100.0);
+                        withdrawnCents.addAndGet(cents);
+                    } catch (InsufficientFundsException e) {
+                        // expected when the account runs dry
+                    }
+                }
+                assertTrue(acct.getBalance() >= 0);
+            }
+            return null;
+        });
+
+        long expectedCents = 100_000 + depositedCents.get() - withdrawnCents.get();
+        assertEquals(expectedCents / 100.0, acct.getBalance(), 0.001);
+    }
+
+    @Test
+    void stress_transfers_conserve_total() throws Exception {
+        // Transfers between a small set of accounts in both directions never create or lose money
+        ConcurrentBankAccount[] accounts = new ConcurrentBankAccount[4];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new ConcurrentBankAccount("user" + i + "@bank.com", 100.0);
+        }
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                ConcurrentBankAccount from = accounts[random.nextInt(accounts.length)];
+                ConcurrentBankAccount to = accounts[random.nextInt(accounts.length)];
+                try {
+                    from.transfer(to, (1 + random.nextInt(5000)) / 100.0);
+                } catch (InsufficientFundsException e) {
+                    // expected when the source runs dry
+                }
+            }
+            return null;
+        });
+
+        double total = 0;
+        for (ConcurrentBankAccount acct : accounts) {
+            assertTrue(acct.getBalance() >= 0);
+            total += acct.getBalance();
+        }
+        assertEquals(400.0, total, 0.001);
+    }
+
+    @Test
+    void stress_opposite_transfers_are_atomic_and_do_not_deadlock() throws Exception {
+        // A->B and B->A run at the same time while a reader checks no money is ever in flight
+        ConcurrentBankAccount a = new ConcurrentBankAccount("a@b.com", 500.0);
+        ConcurrentBankAccount b = new ConcurrentBankAccount("c@d.com", 500.0);
+        AtomicLong counter = new AtomicLong();
+
+        runConcurrently(() -> {
+            boolean reader = counter.getAndIncrement() == 0;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                if (reader) {
+                    assertEquals(100_000, ConcurrentBankAccount.combinedBalanceCents(a, b));
+                } else {
+                    ConcurrentBankAccount from = random.nextBoolean() ? a : b;
+                    try {
+                        from.transferCents(from == a ? b : a, 1 + random.nextInt(10_000));
+                    } catch (InsufficientFundsException e) {
+                        // expected when the source runs dry
+                    }
+                }
+            }
+            return null;
+        });
+
+        assertEquals(100_000, a.getBalanceCents() + b.getBalanceCents());
+    }
+
+    @Test
+    void ids_are_unique() {
+        ConcurrentBankAccount a = new ConcurrentBankAccount("a@b.com", 0.0);
+        ConcurrentBankAccount b = new ConcurrentBankAccount("a@b.com", 0.0);
+        assertNotEquals(a.getId(), b.getId());
+    }
+
+    private static void runConcurrently(Callable<Void> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void balance_cannot_go_over_max() throws InsufficientFundsException {
+        long max = BankAccount.MAX_BALANCE_CENTS;
+        ConcurrentBankAccount full = new ConcurrentBankAccount("a@b.com", 0.0);
+        full.depositCents(max); // up to the max, border
+        assertThrows(IllegalArgumentException.class, () -> full.depositCents(1)); // one cent over, border
+        assertThrows(IllegalArgumentException.class, () -> full.depositCents(Long.MAX_VALUE));
+        assertEquals(max, full.getBalanceCents());
+
+        ConcurrentBankAccount from = new ConcurrentBankAccount("c@d.com", 1.0);
+        assertThrows(IllegalArgumentException.class, () -> from.transferCents(full, 1));
+        assertThrows(IllegalArgumentException.class, () -> from.tryTransfer(full, 0.01));
+        assertEquals(100, from.getBalanceCents());
+        assertEquals(max, full.getBalanceCents());
+        full.transferCents(full, max); // to itself, border
+        assertEquals(max, full.getBalanceCents());
+    }
+}
@@ -0,0 +1,89 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class EmailValidationCacheTest {
+
+    @Test
+    void results_match_validator_and_hits_are_counted() {
+        EmailValidationCache cache = new EmailValidationCache(100, EvictionPolicy.Lru::new);
+        String[] emails = {"a@b.com", "a-@b.com", "abc.def@mail.cc", "abc@mail.c", "", null};
+        for (int round = 0; round < 3; round++) {
+            for (String email : emails) {
+                assertEquals(BankAccount.isEmailValid(email), cache.isValid(email));
+            }
+        }
+        assertEquals(5, cache.size()); // null is never cached
+        assertEquals(10, cache.getHitCount());
+        assertEquals(8, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    void unique_inputs_stay_bounded() {
+        EmailValidationCache cache = new EmailValidationCache(1000, EvictionPolicy.Fifo::new);
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(cache.isValid("user" + i + "@bank.com"));
+        }
+        assertTrue(cache.size() <= 1000);
+        assertEquals(100_000 - cache.size(), cache.getEvictionCount());
+
+        String tooLong = "a".repeat(EmailValidationCache.MAX_KEY_LENGTH) + "@b.com"; // longer than any real email
+        assertTrue(cache.isValid(tooLong));
+        assertTrue(cache.isValid(tooLong));
+        assertEquals(0, cache.getHitCount()); // never cached
+        assertThrows(IllegalArgumentException.class, () -> new EmailValidationCache(0, EvictionPolicy.Lru::new));
+    }
+
+    @Test
+    void lru_and_fifo_policies() {
+        EvictionPolicy lru = new EvictionPolicy.Lru();
+        EvictionPolicy fifo = new EvictionPolicy.Fifo();
+        for (String key : new String[] {"a", "b", "c"}) {
+            lru.recordInsert(key);
+            fifo.recordInsert(key);
+        }
+        lru.recordHit("a");
+        fifo.recordHit("a");
+
+        assertEquals("b", lru.evict());
+        assertEquals("c", lru.evict());
+        assertEquals("a", lru.evict());
+        assertEquals("a", fifo.evict());
+        assertEquals("b", fifo.evict());
+    }
+
+    @Test
+    void concurrent_lookups() throws Exception {
+        EmailValidationCache cache = new EmailValidationCache(64, EvictionPolicy.Lru::new);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                workers.add(pool.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        String email = "user" + (i % 200) + (i % 3 == 0 ? "@bank" : "@bank.com");
+                        assertEquals(i % 3 != 0, cache.isValid(email));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(cache.size() <= 64);
+        assertEquals(200_000, cache.getHitCount() + cache.getMissCount());
+    }
+}
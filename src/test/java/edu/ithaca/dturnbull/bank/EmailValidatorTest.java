@@ -0,0 +1,92 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class EmailValidatorTest {
+
+    /**
+     * The original regex based implementation of BankAccount.isEmailValid, kept as the reference for parity checks
+     */
+    private static boolean regexIsEmailValid(String email) {
+        if (email == null){
+            return false;
+        }
+
+        String emailRegex = "^[A-Za-z0-9]+([._-][A-Za-z0-9]+)*@[A-Za-z0-9]+(-[A-Za-z0-9]+)*(\\.[A-Za-z0-9]+(-[A-Za-z0-9]+)*)+$";
+        if (!email.matches(emailRegex)) {
+            return false;
+        }
+
+        String domain = email.substring(email.indexOf('@') + 1);
+        int lastDot = domain.lastIndexOf('.');
+
+        if (lastDot == -1 || lastDot == domain.length() - 1){
+            return false;
+        }
+        String tld = domain.substring(lastDot + 1);
+
+        return tld.matches("[A-Za-z]{2,}");
+    }
+
+    private static void assertParity(String email) {
+        assertEquals(regexIsEmailValid(email), EmailValidator.isValid(email), "Mismatch for: " + email);
+    }
+
+    @Test
+    void parity_known_cases() {
+        String[] emails = {
+            null, "", "a@b.com", "abc-@mail.com", "abc..def@mail.com", ".abc@mail.com", "abc#def@mail.com",
+            "abc.def@mail.c", "abc.def@mail#archive.com", "abc.def@mail", "abc.def@mail..com",
+            "abc-def@mail.com", "abc.def@mail.com", "abc_def@mail.com", "abc.def@mail-archive.com",
+            "abc.def@mail.co", "abcdef.mail.com", "abc@@mail.com", "@mail.com", "abc@", "a-@mail.com",
+            "abc@-mail.com", "abc@mail-.com", "abc@.mail.com", "abc@mail.com.", "abc@mail.c0m",
+            "abc@mail.co-uk", "abc@mail.-com", "abc@mail-.com", "abc@a.b.cc", "abc@123.456.com",
+            "abc@mail.com1", "a_b-c.d@x-y-z.sub.domain.org", "a@b.c", "a@b.cc", "a@", "@", "a@b", "a@b.",
+            "a@.b", "a._b@mail.com", "a@b-c.d-e.fg", "abé@mail.com", "ab@máil.com", "ab@mail.cóm",
+            "AB@MAIL.COM", "a b@mail.com", "ab@mail.com ", "ab@mail_x.com",
+        };
+        for (String email : emails) {
+            assertParity(email);
+        }
+    }
+
+    @Test
+    void parity_random_short_strings() {
+        // Equivalence classes are explored by brute force over an alphabet of every character kind the rules care about
+        char[] alphabet = {'a', 'Z', '0', '9', '.', '_', '-', '@', '#', 'é'};
+        Random random = new Random(345);
+        for (int n = 0; n < 200_000; n++) {
+            int length = random.nextInt(12);
+            StringBuilder email = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                email.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertParity(email.toString());
+        }
+    }
+
+    @Test
+    void parity_random_mostly_valid_shapes() {
+        // Equivalence class of near valid addresses, where a single mutation decides validity
+        String[] locals = {"a", "ab", "a.b", "a_b", "a-b", "a1", "1a", "a.", "-a", "a..b"};
+        String[] domains = {"b.com", "b.co", "b.c", "b-c.com", "b.c-d.com", "b..com", "b.com.", "-b.com", "b-.com", "b.c0m", "b", "1.23", "b.cOM"};
+        for (String local : locals) {
+            for (String domain : domains) {
+                assertParity(local + "@" + domain);
+                assertParity(local + "@@" + domain);
+                assertParity(local + domain);
+            }
+        }
+    }
+
+    @Test
+    void isEmailValid_delegates_to_validator() {
+        assertTrue(BankAccount.isEmailValid("a@b.com")); // valid, middle
+        assertFalse(BankAccount.isEmailValid("a@b.c")); // TLD too short, border
+        assertFalse(BankAccount.isEmailValid(null)); // null, border
+    }
+}
@@ -0,0 +1,207 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class OperationDedupCacheTest {
+
+    @Test
+    void retries_are_applied_once() throws InsufficientFundsException {
+        OperationDedupCache cache = new OperationDedupCache(1000, 60_000);
+        ConcurrentBankAccount from = new ConcurrentBankAccount("a@b.com", 100.0);
+        ConcurrentBankAccount to = new ConcurrentBankAccount("c@d.com", 0.0);
+
+        for (int retry = 0; retry < 3; retry++) {
+            cache.deposit(1, from, 10.0);
+            cache.withdraw(2, from, 20.0);
+            cache.transfer(3, from, to, 30.0);
+        }
+        assertEquals(60.0, from.getBalance(), 0.001);
+        assertEquals(30.0, to.getBalance(), 0.001);
+        assertEquals(6, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+
+        cache.deposit(4, from, 10.0); // new id, applied again
+        assertEquals(70.0, from.getBalance(), 0.001);
+        assertEquals("first", cache.execute(5, () -> "first"));
+        assertEquals("first", cache.execute(5, () -> "second"));
+    }
+
+    @Test
+    void failures_are_replayed_without_running_again() throws InsufficientFundsException {
+        OperationDedupCache cache = new OperationDedupCache(1000, 60_000);
+        ConcurrentBankAccount account = new ConcurrentBankAccount("a@b.com", 10.0);
+
+        InsufficientFundsException first = assertThrows(InsufficientFundsException.class, () -> cache.withdraw(1, account, 10.01)); // amount > balance, border
+        account.deposit(100.0);
+        // the retry now has the money, but the original outcome stands
+        InsufficientFundsException retry = assertThrows(InsufficientFundsException.class, () -> cache.withdraw(1, account, 10.01));
+        assertSame(first, retry);
+        assertThrows(IllegalArgumentException.class, () -> cache.deposit(2, account, -1.0));
+        assertThrows(IllegalArgumentException.class, () -> cache.deposit(2, account, 1.0));
+        assertEquals(110.0, account.getBalance(), 0.001);
+    }
+
+    @Test
+    void entries_expire_after_ttl() throws InsufficientFundsException {
+        AtomicLong now = new AtomicLong();
+        OperationDedupCache cache = new OperationDedupCache(1000, 10, now::get);
+        ConcurrentBankAccount account = new ConcurrentBankAccount("a@b.com", 0.0);
+
+        cache.deposit(1, account, 1.0);
+        now.set(TimeUnit.MILLISECONDS.toNanos(10) - 1); // just inside ttl, border
+        cache.deposit(1, account, 1.0);
+        assertEquals(1.0, account.getBalance(), 0.001);
+        now.set(TimeUnit.MILLISECONDS.toNanos(10)); // ttl reached, border
+        cache.deposit(1, account, 1.0);
+        assertEquals(2.0, account.getBalance(), 0.001);
+    }
+
+    @Test
+    void full_sets_refuse_new_ids_instead_of_forgetting_live_ones() throws InsufficientFundsException {
+        AtomicLong now = new AtomicLong();
+        OperationDedupCache cache = new OperationDedupCache(1024, 10, now::get);
+        // collect ids that can only use the same two sets, 16 slots in a cache of 1024
+        long seed = 0;
+        List<Long> ids = new ArrayList<>();
+        for (long id = seed; ids.size() <= 2 * OperationDedupCache.WAYS; id++) {
+            if (cache.placementOf(id) == cache.placementOf(seed)) {
+                ids.add(id);
+            }
+        }
+
+        AtomicLong runs = new AtomicLong();
+        for (int i = 0; i < 2 * OperationDedupCache.WAYS; i++) {
+            cache.execute(ids.get(i), runs::incrementAndGet);
+        }
+        long extra = ids.get(2 * OperationDedupCache.WAYS);
+        // one id more than its sets hold while the cache is nearly empty, border
+        assertThrows(IllegalStateException.class, () -> cache.execute(extra, runs::incrementAndGet));
+        assertEquals(2 * OperationDedupCache.WAYS, runs.get());
+        assertEquals(1, cache.getRejectionCount());
+        // every live id is still remembered
+        for (int i = 0; i < 2 * OperationDedupCache.WAYS; i++) {
+            assertEquals(i + 1, (long) cache.execute(ids.get(i), runs::incrementAndGet));
+        }
+        assertEquals(2 * OperationDedupCache.WAYS, runs.get());
+
+        now.set(TimeUnit.MILLISECONDS.toNanos(10)); // all expired, border
+        assertEquals(2 * OperationDedupCache.WAYS + 1, (long) cache.execute(extra, runs::incrementAndGet));
+
+        assertThrows(IllegalArgumentException.class, () -> new OperationDedupCache(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new OperationDedupCache(1, 0));
+        OperationDedupCache tiny = new OperationDedupCache(1, 60_000); // smaller than one set, border
+        assertEquals(2, tiny.slotCount()); // two sets of one slot
+        tiny.execute(1, runs::incrementAndGet);
+        tiny.execute(2, runs::incrementAndGet);
+        assertThrows(IllegalStateException.class, () -> tiny.execute(3, runs::incrementAndGet));
+    }
+
+    @Test
+    void sets_are_distinct_and_fill_most_slots_before_refusing() throws InsufficientFundsException {
+        for (int maxEntries : new int[] {1000, 100_000}) {
+            OperationDedupCache cache = new OperationDedupCache(maxEntries, 60_000);
+            assertTrue(cache.slotCount() >= maxEntries); // rounded up
+            assertTrue(cache.slotCount() < 2L * maxEntries);
+            for (long id = 0; id < 10_000; id++) {
+                long placement = cache.placementOf(id);
+                assertNotEquals(placement >>> 21 & 0x1FFFFF, placement & 0x1FFFFF);
+            }
+
+            SplittableRandom random = new SplittableRandom(42);
+            long live = 0;
+            try {
+                while (true) {
+                    cache.execute(random.nextLong(), () -> null);
+                    live++;
+                }
+            } catch (IllegalStateException e) {
+                // the first refusal
+            }
+            // random ids fill about 70% of the slots before the first refusal, see the class doc
+            assertTrue(live >= cache.slotCount() * 65 / 100, maxEntries + ": refused after " + live + " of " + cache.slotCount());
+        }
+    }
+
+    @Test
+    void running_operation_holds_up_only_its_own_retries() throws Exception {
+        OperationDedupCache cache = new OperationDedupCache(OperationDedupCache.WAYS, 60_000); // every id shares the same two sets
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong runs = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Long> first = pool.submit(() -> cache.execute(1, () -> {
+                started.countDown();
+                awaitQuietly(release);
+                return runs.incrementAndGet();
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<Long> retry = pool.submit(() -> cache.execute(1, runs::incrementAndGet));
+
+            // other ids run and replay while id 1 is still running
+            assertEquals(1, (long) cache.execute(2, runs::incrementAndGet));
+            assertEquals(1, (long) cache.execute(2, runs::incrementAndGet));
+            assertFalse(retry.isDone());
+
+            release.countDown();
+            assertEquals(2, (long) first.get(10, TimeUnit.SECONDS));
+            assertEquals(2, (long) retry.get(10, TimeUnit.SECONDS));
+            assertEquals(2, runs.get());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+
+        // an operation that dies without an outcome is not remembered
+        assertThrows(AssertionError.class, () -> cache.execute(3, () -> {
+            throw new AssertionError("lost");
+        }));
+        assertEquals(3, (long) cache.execute(3, runs::incrementAndGet));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void concurrent_retries_apply_once() throws Exception {
+        OperationDedupCache cache = new OperationDedupCache(100_000, 60_000);
+        ConcurrentBankAccount account = new ConcurrentBankAccount("a@b.com", 0.0);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                tasks.add(pool.submit(() -> {
+                    for (long id = 0; id < 10_000; id++) {
+                        cache.deposit(id, account, 0.01);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(10_000, account.getBalanceCents());
+        assertEquals(10_000, cache.getMissCount());
+        assertEquals(30_000, cache.getHitCount());
+    }
+}
@@ -0,0 +1,139 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class ShardedAccountsTest {
+
+    @Test
+    void operations_route_to_owning_shard() throws Exception {
+        try (ShardedAccounts cluster = new ShardedAccounts(new InProcessShardTransport(4))) {
+            cluster.open("a@b.com", 100.0).get();
+            cluster.deposit("A@B.com", 0.01).get(); // same account ignoring case
+            cluster.withdraw("a@b.com", 50.0).get();
+            assertEquals(50.01, cluster.getBalance("a@b.com").get(), 0.001);
+            assertEquals(cluster.shardOf("a@b.com"), cluster.shardOf("A@B.COM"));
+
+            assertFailsWith(IllegalArgumentException.class, cluster.open("a@b.com", 1.0)); // taken
+            assertFailsWith(IllegalArgumentException.class, cluster.open("bad", 1.0));
+            assertFailsWith(IllegalArgumentException.class, cluster.deposit("a@b.com", 0.001));
+            assertFailsWith(IllegalArgumentException.class, cluster.deposit("x@y.com", 1.0)); // no such account
+            assertFailsWith(InsufficientFundsException.class, cluster.withdraw("a@b.com", 50.02)); // amount > balance, border
+        }
+    }
+
+    @Test
+    void cross_shard_transfer_is_all_or_nothing() throws Exception {
+        try (ShardedAccounts cluster = new ShardedAccounts(new InProcessShardTransport(8))) {
+            String from = "from@bank.com";
+            String to = null;
+            for (int i = 0; to == null; i++) {
+                if (cluster.shardOf("to" + i + "@bank.com") != cluster.shardOf(from)) {
+                    to = "to" + i + "@bank.com";
+                }
+            }
+            cluster.open(from, 100.0).get();
+            cluster.open(to, 0.0).get();
+
+            cluster.transfer(from, to, 100.0).get(); // amount == balance, border
+            assertEquals(0.0, cluster.getBalance(from).get(), 0.001);
+            assertEquals(100.0, cluster.getBalance(to).get(), 0.001);
+
+            assertFailsWith(InsufficientFundsException.class, cluster.transfer(from, to, 0.01));
+            assertFailsWith(IllegalArgumentException.class, cluster.transfer(to, "missing@bank.com", 10.0)); // credit side fails
+            assertEquals(0.0, cluster.getBalance(from).get(), 0.001);
+            assertEquals(100.0, cluster.getBalance(to).get(), 0.001); // hold given back
+        }
+    }
+
+    @Test
+    void prepare_rejects_a_pending_transaction_id() throws Exception {
+        AccountShard shard = new AccountShard();
+        shard.execute(new ShardCommand(ShardCommand.OPEN, "a@b.com", null, 100, 0));
+        shard.execute(new ShardCommand(ShardCommand.PREPARE_DEBIT, "a@b.com", null, 10, 7));
+
+        assertThrows(IllegalArgumentException.class, () -> shard.execute(new ShardCommand(ShardCommand.PREPARE_DEBIT, "a@b.com", null, 20, 7)));
+        assertThrows(IllegalArgumentException.class, () -> shard.execute(new ShardCommand(ShardCommand.PREPARE_CREDIT, "a@b.com", null, 20, 7)));
+        assertEquals(90, shard.execute(new ShardCommand(ShardCommand.BALANCE, "a@b.com", null, 0, 0))); // second debit not taken
+
+        shard.execute(new ShardCommand(ShardCommand.ABORT, null, null, 0, 7));
+        assertEquals(100, shard.execute(new ShardCommand(ShardCommand.BALANCE, "a@b.com", null, 0, 0)));
+        shard.execute(new ShardCommand(ShardCommand.PREPARE_DEBIT, "a@b.com", null, 20, 7)); // id free again once resolved
+    }
+
+    @Test
+    void coordinators_sharing_shards_use_distinct_transaction_ids() throws Exception {
+        try (InProcessShardTransport transport = new InProcessShardTransport(2);
+             ShardedAccounts first = new ShardedAccounts(transport, 1);
+             ShardedAccounts second = new ShardedAccounts(transport, 2)) {
+            String a = "a@bank.com";
+            String b = null;
+            for (int i = 0; b == null; i++) {
+                if (first.shardOf("b" + i + "@bank.com") != first.shardOf(a)) {
+                    b = "b" + i + "@bank.com";
+                }
+            }
+            first.open(a, 100.0).get();
+            first.open(b, 100.0).get();
+
+            // both coordinators' first transaction is number 1, only the coordinator id tells them apart
+            CompletableFuture<Void> one = first.transfer(a, b, 10.0);
+            CompletableFuture<Void> two = second.transfer(b, a, 30.0);
+            one.get(10, TimeUnit.SECONDS);
+            two.get(10, TimeUnit.SECONDS);
+            assertEquals(120.0, first.getBalance(a).get(), 0.001);
+            assertEquals(80.0, first.getBalance(b).get(), 0.001);
+        }
+    }
+
+    @Test
+    void concurrent_transfers_conserve_money() throws Exception {
+        int accounts = 32;
+        try (ShardedAccounts cluster = new ShardedAccounts(new InProcessShardTransport(4))) {
+            for (int i = 0; i < accounts; i++) {
+                cluster.open("user" + i + "@bank.com", 100.0).get();
+            }
+            List<CompletableFuture<Void>> transfers = new ArrayList<>();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                transfers.add(cluster.transfer("user" + random.nextInt(accounts) + "@bank.com",
+                        "user" + random.nextInt(accounts) + "@bank.com", (1 + random.nextInt(5000)) / 100.0));
+            }
+            CompletableFuture.allOf(transfers.toArray(new CompletableFuture<?>[0])).handle((ignored, e) -> null).get(60, TimeUnit.SECONDS);
+
+            long total = 0;
+            for (int i = 0; i < accounts; i++) {
+                double balance = cluster.getBalance("user" + i + "@bank.com").get();
+                assertTrue(balance >= 0);
+                total += Math.round(balance * 100);
+            }
+            assertEquals(accounts * 10_000, total);
+        }
+    }
+
+    @Test
+    void send_after_close_fails_the_future() throws Exception {
+        InProcessShardTransport transport = new InProcessShardTransport(2);
+        ShardedAccounts cluster = new ShardedAccounts(transport);
+        cluster.open("a@b.com", 100.0).get();
+        cluster.close();
+
+        assertFailsWith(RejectedExecutionException.class, transport.send(0, new ShardCommand(ShardCommand.BALANCE, "a@b.com", null, 0, 0)));
+        assertFailsWith(RejectedExecutionException.class, cluster.deposit("a@b.com", 1.0));
+        assertFailsWith(RejectedExecutionException.class, cluster.transfer("a@b.com", "c@d.com", 1.0));
+    }
+
+    private static void assertFailsWith(Class<? extends Exception> expected, CompletableFuture<?> future) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(expected, e.getCause());
+    }
+}
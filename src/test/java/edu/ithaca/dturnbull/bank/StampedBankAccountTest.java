@@ -0,0 +1,89 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class StampedBankAccountTest {
+
+    @Test
+    void operations_follow_bank_account_rules() throws InsufficientFundsException {
+        StampedBankAccount from = new StampedBankAccount("a@b.com", 200.0);
+        StampedBankAccount to = new StampedBankAccount("c@d.com", 0.0);
+        assertEquals("a@b.com", from.getEmail());
+
+        from.deposit(0.01);
+        from.withdraw(0.01);
+        from.transfer(to, 100.0);
+        from.transfer(from, 50.0); // to itself, balance stays
+        assertThrows(InsufficientFundsException.class, () -> from.withdraw(100.01)); // amount > balance, border
+        assertFalse(from.tryTransfer(to, 100.01));
+        assertTrue(from.tryWithdraw(100.0)); // amount == balance, border
+        assertThrows(IllegalArgumentException.class, () -> from.deposit(-0.01));
+        assertThrows(IllegalArgumentException.class, () -> from.transfer(null, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new StampedBankAccount("bad", 1.0));
+
+        StampedBankAccount.Totals totals = from.getTotals();
+        assertEquals(0, totals.getBalanceCents());
+        assertEquals(5001, totals.getDepositedCents());
+        assertEquals(25001, totals.getWithdrawnCents());
+        assertEquals(100.0, to.getBalance(), 0.001);
+        assertEquals(10000, to.getTotals().getDepositedCents());
+
+        to.depositCents(BankAccount.MAX_BALANCE_CENTS - 10000); // up to the max, border
+        assertThrows(IllegalArgumentException.class, () -> to.depositCents(1)); // one cent over, border
+        from.deposit(1.0);
+        assertThrows(IllegalArgumentException.class, () -> from.transferCents(to, 1));
+        assertEquals(100, from.getBalanceCents());
+        assertEquals(BankAccount.MAX_BALANCE_CENTS, to.getBalanceCents());
+    }
+
+    @Test
+    void concurrent_reads_always_consistent() throws Exception {
+        StampedBankAccount acct = new StampedBankAccount("a@b.com", 100.0);
+        StampedBankAccount other = new StampedBankAccount("c@d.com", 100.0);
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                tasks.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 50_000; i++) {
+                        acct.deposit(0.01);
+                        acct.tryWithdraw(random.nextInt(3) / 100.0);
+                        acct.tryTransfer(other, 0.01);
+                        other.tryTransfer(acct, 0.01);
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reader = pool.submit(() -> {
+                while (!done.get()) {
+                    StampedBankAccount.Totals totals = acct.getTotals();
+                    assertEquals(10000 + totals.getDepositedCents() - totals.getWithdrawnCents(), totals.getBalanceCents());
+                }
+                return null;
+            });
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            reader.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        StampedBankAccount.Totals totals = acct.getTotals();
+        assertEquals(10000 + totals.getDepositedCents() - totals.getWithdrawnCents(), totals.getBalanceCents());
+        assertTrue(acct.getBalanceCents() >= 0);
+    }
+}
@@ -0,0 +1,84 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class TransactionHistoryTest {
+
+    @Test
+    void store_operations_are_recorded_newest_first() throws InsufficientFundsException {
+        TransactionHistory history = new TransactionHistory(8);
+        AccountStore store = new AccountStore(2, null, history);
+        int a = store.create("a@b.com", 100.0);
+        int b = store.create("c@d.com", 0.0);
+        store.deposit(a, 5.0);
+        store.withdraw(a, 1.5);
+        store.transfer(a, b, 10.0);
+        assertThrows(InsufficientFundsException.class, () -> store.withdraw(b, 10.01)); // failed, not recorded
+
+        long[] timestamps = new long[8];
+        long[] cents = new long[8];
+        int[] counterparties = new int[8];
+        assertEquals(3, history.copyRecent(a, timestamps, cents, counterparties));
+        assertArrayEquals(new long[] {-1000, -150, 500}, Arrays.copyOf(cents, 3));
+        assertEquals(b, counterparties[0]);
+        assertEquals(TransactionHistory.NO_COUNTERPARTY, counterparties[1]);
+        assertTrue(timestamps[0] >= timestamps[2] && timestamps[2] > 0);
+
+        assertEquals(1, history.copyRecent(b, timestamps, cents, counterparties));
+        assertEquals(1000, cents[0]);
+        assertEquals(a, counterparties[0]);
+    }
+
+    @Test
+    void ring_keeps_only_the_latest_entries() {
+        TransactionHistory history = new TransactionHistory(4);
+        for (int i = 1; i <= 10; i++) {
+            history.record(3, i, i, TransactionHistory.NO_COUNTERPARTY);
+        }
+        assertEquals(4, history.size(3)); // full, border
+        assertEquals(0, history.size(2)); // never written
+        assertEquals(0, history.size(100)); // past the end
+
+        long[] timestamps = new long[2];
+        long[] cents = new long[10];
+        int[] counterparties = new int[10];
+        assertEquals(2, history.copyRecent(3, timestamps, cents, counterparties)); // limited by the shortest array
+        assertEquals(10, cents[0]);
+        assertEquals(9, cents[1]);
+
+        timestamps = new long[10];
+        assertEquals(4, history.copyRecent(3, timestamps, cents, counterparties));
+        assertArrayEquals(new long[] {10, 9, 8, 7}, Arrays.copyOf(timestamps, 4));
+        assertEquals(0, history.copyRecent(100, timestamps, cents, counterparties));
+    }
+
+    @Test
+    void invalid_arguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TransactionHistory(0));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionHistory(4).record(-1, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionHistory(4, -1));
+        assertThrows(IllegalArgumentException.class, () -> new TransactionHistory(4, AccountStore.MAX_ARRAY_LENGTH / 4 + 1)); // one account too many, border
+    }
+
+    @Test
+    void presized_history_grows_past_expected_accounts() {
+        TransactionHistory history = new TransactionHistory(2, 3);
+        assertEquals(0, history.size(2)); // room made, nothing recorded
+
+        history.record(2, 1, 100, TransactionHistory.NO_COUNTERPARTY); // last expected account, border
+        history.record(3, 2, -50, 2); // first account past the expected count
+        assertEquals(1, history.size(2));
+        assertEquals(1, history.size(3));
+
+        long[] timestamps = new long[2];
+        long[] cents = new long[2];
+        int[] counterparties = new int[2];
+        assertEquals(1, history.copyRecent(3, timestamps, cents, counterparties));
+        assertEquals(-50, cents[0]);
+        assertEquals(2, counterparties[0]);
+    }
+}
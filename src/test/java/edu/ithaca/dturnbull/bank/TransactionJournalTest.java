@@ -0,0 +1,98 @@
+package edu.ithaca.dturnbull.bank;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class TransactionJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replay_rebuilds_store_after_reopen() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        try (TransactionJournal journal = new TransactionJournal(file, 1)) {
+            AccountStore store = new AccountStore(4, journal);
+            int a = store.create("a@b.com", 200.0);
+            int b = store.create("first.last@mail-archive.com", 50.0);
+            store.deposit(a, 0.01);
+            store.withdraw(b, 25.0);
+            store.transfer(a, b, 100.0);
+            assertThrows(InsufficientFundsException.class, () -> store.withdraw(b, 1000.0)); // failed, not journaled
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(file, 0)) {
+            AccountStore recovered = new AccountStore();
+            journal.replay(0, recovered);
+
+            assertEquals(2, recovered.size());
+            assertEquals("a@b.com", recovered.getEmail(0));
+            assertEquals("first.last@mail-archive.com", recovered.getEmail(1));
+            assertEquals(10001, recovered.getBalanceCents(0));
+            assertEquals(12500, recovered.getBalanceCents(1));
+        }
+    }
+
+    @Test
+    void reopen_appends_after_last_record() throws Exception {
+        Path file = dir.resolve("journal.bin");
+        long end;
+        try (TransactionJournal journal = new TransactionJournal(file, 0)) {
+            journal.appendCreate("a@b.com", 100);
+            journal.appendDeposit(0, 5);
+            end = journal.position();
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(file, 0)) {
+            assertEquals(end, journal.position());
+            journal.appendWithdraw(0, 30);
+
+            AccountStore recovered = new AccountStore();
+            journal.replay(0, recovered);
+            assertEquals(75, recovered.getBalanceCents(0));
+
+            AccountStore tail = new AccountStore();
+            tail.createCents("a@b.com", 0);
+            journal.replay(end, tail); // only the records written after reopening
+            assertEquals(-30, tail.getBalanceCents(0));
+        }
+    }
+
+    @Test
+    void records_move_to_next_region_when_full() throws Exception {
+        // Regions of 256 bytes force many region switches, including records ending exactly at a region end
+        Path file = dir.resolve("journal.bin");
+        long expected = 0;
+        try (TransactionJournal journal = new TransactionJournal(file, 3, 256)) {
+            journal.appendCreate("someone.with.a.long.email@bank.com", 0);
+            for (int i = 1; i <= 1000; i++) {
+                journal.appendDeposit(0, i);
+                expected += i;
+            }
+        }
+
+        try (TransactionJournal journal = new TransactionJournal(file, 0, 256)) {
+            AccountStore recovered = new AccountStore();
+            journal.replay(0, recovered);
+            assertEquals(expected, recovered.getBalanceCents(0));
+            assertEquals("someone.with.a.long.email@bank.com", recovered.getEmail(0));
+        }
+    }
+
+    @Test
+    void negative_sync_policy_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new TransactionJournal(dir.resolve("journal.bin"), -1));
+    }
+
+    @Test
+    void empty_journal_starts_at_zero() throws IOException {
+        try (TransactionJournal journal = new TransactionJournal(dir.resolve("journal.bin"), 0)) {
+            assertEquals(0, journal.position());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package edu.ithaca.dturnbull.bank;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+class TransferBatchTest {
+
+    @Test
+    void apply_reports_each_result_without_throwing() {
+        ConcurrentBankAccount a = new ConcurrentBankAccount("a@b.com", 100.0);
+        ConcurrentBankAccount b = new ConcurrentBankAccount("c@d.com", 50.0);
+
+        TransferBatch batch = new TransferBatch(2); // grows past the expected size
+        batch.add(a, b, 25.0); // valid, middle
+        batch.add(a, b, 10.999); // more than 2 decimals
+        batch.add(a, b, -0.01); // negative, border
+        batch.add(a, null, 1.0); // null account
+        batch.add(b, a, 500.0); // amount > balance
+        batch.add(a, b, 0.0); // zero, border
+        batch.add(a, b, 75.0); // amount == remaining balance, border
+
+        assertEquals(7, batch.size());
+        assertArrayEquals(new byte[] {
+            TransferBatch.OK, TransferBatch.INVALID_AMOUNT, TransferBatch.INVALID_AMOUNT, TransferBatch.INVALID_ACCOUNT,
+            TransferBatch.INSUFFICIENT_FUNDS, TransferBatch.OK, TransferBatch.OK,
+        }, batch.apply());
+        assertEquals(0, a.getBalanceCents());
+        assertEquals(15000, b.getBalanceCents());
+    }
+
+    @Test
+    void apply_keeps_order_within_connected_accounts() {
+        // b can only pay c after a has paid b, so the chain only works in order
+        ConcurrentBankAccount a = new ConcurrentBankAccount("a@b.com", 10.0);
+        ConcurrentBankAccount b = new ConcurrentBankAccount("b@b.com", 0.0);
+        ConcurrentBankAccount c = new ConcurrentBankAccount("c@b.com", 0.0);
+
+        TransferBatch batch = new TransferBatch();
+        batch.addCents(a, b, 1000);
+        batch.addCents(b, c, 1000);
+        batch.addCents(c, a, 1001);
+
+        assertArrayEquals(new byte[] {TransferBatch.OK, TransferBatch.OK, TransferBatch.INSUFFICIENT_FUNDS}, batch.apply());
+        assertEquals(0, a.getBalanceCents());
+        assertEquals(0, b.getBalanceCents());
+        assertEquals(1000, c.getBalanceCents());
+    }
+
+    @Test
+    void apply_many_disjoint_groups_conserves_money() {
+        int pairs = 1000;
+        ConcurrentBankAccount[] accounts = new ConcurrentBankAccount[2 * pairs];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = new ConcurrentBankAccount("user" + i + "@bank.com", 1.0);
+        }
+
+        TransferBatch batch = new TransferBatch(pairs * 3);
+        for (int i = 0; i < pairs; i++) {
+            batch.addCents(accounts[2 * i], accounts[2 * i + 1], 60);
+            batch.addCents(accounts[2 * i], accounts[2 * i + 1], 60); // only 40 cents left
+            batch.addCents(accounts[2 * i + 1], accounts[2 * i], 160);
+        }
+
+        byte[] results = batch.apply();
+        long total = 0;
+        for (int i = 0; i < pairs; i++) {
+            assertEquals(TransferBatch.OK, results[3 * i]);
+            assertEquals(TransferBatch.INSUFFICIENT_FUNDS, results[3 * i + 1]);
+            assertEquals(TransferBatch.OK, results[3 * i + 2]);
+            assertEquals(200, accounts[2 * i].getBalanceCents());
+            assertEquals(0, accounts[2 * i + 1].getBalanceCents());
+            total += accounts[2 * i].getBalanceCents() + accounts[2 * i + 1].getBalanceCents();
+        }
+        assertEquals(200 * pairs, total);
+    }
+
+    @Test
+    void apply_empty_batch() {
+        assertEquals(0, new TransferBatch().apply().length);
+    }
+
+    @Test
+    void apply_reports_overflowing_receiver_as_invalid_amount() {
+        ConcurrentBankAccount from = new ConcurrentBankAccount("a@b.com", 1.0);
+        ConcurrentBankAccount full = new ConcurrentBankAccount("c@d.com", 0.0);
+        full.depositCents(BankAccount.MAX_BALANCE_CENTS);
+
+        TransferBatch batch = new TransferBatch();
+        batch.addCents(from, full, 1);
+        assertArrayEquals(new byte[] {TransferBatch.INVALID_AMOUNT}, batch.apply());
+        assertEquals(100, from.getBalanceCents());
+        assertEquals(BankAccount.MAX_BALANCE_CENTS, full.getBalanceCents());
+    }
+}